@@ -0,0 +1,92 @@
+package benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import testsmell.TestFile;
+
+/**
+ * The corpus bundled with the benchmarks (src/main/resources/corpus): a few
+ * test classes that show every smell, and the production classes they test.
+ */
+public final class Corpus {
+
+	/**
+	 * The test files of the corpus and their production files, empty if the test
+	 * has none
+	 */
+	public static final String[][] FILES = { { "test/CalculatorTest.java", "main/Calculator.java" },
+			{ "test/TextBufferTest.java", "main/TextBuffer.java" }, { "test/LruMapTest.java", "main/LruMap.java" },
+			{ "test/FixturesTest.java", "" } };
+
+	private Corpus() {
+	}
+
+	/**
+	 * Returns the source of a corpus file
+	 */
+	public static String read(String file) {
+		try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + file)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Parses the corpus into pairs of test and production compilation units; the
+	 * production unit is null for a test without one
+	 */
+	public static List<CompilationUnit[]> parse() {
+		List<CompilationUnit[]> units = new ArrayList<>();
+		for (String[] files : FILES) {
+			units.add(new CompilationUnit[] { JavaParser.parse(read(files[0])),
+					files[1].isEmpty() ? null : JavaParser.parse(read(files[1])) });
+		}
+		return units;
+	}
+
+	/**
+	 * Copies the corpus into the directory, as the detector only reads files from
+	 * disk
+	 */
+	public static void extract(Path directory) throws IOException {
+		for (String[] files : FILES) {
+			for (String file : files) {
+				if (file.isEmpty())
+					continue;
+				Path path = directory.resolve(file);
+				Files.createDirectories(path.getParent());
+				Files.write(path, read(file).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * Creates fresh (not yet analyzed) test files for a corpus extracted into the
+	 * directory
+	 */
+	public static List<TestFile> createTestFiles(Path directory) {
+		List<TestFile> testFiles = new ArrayList<>();
+		for (String[] files : FILES) {
+			testFiles.add(new TestFile("corpus", directory.resolve(files[0]).toString(),
+					files[1].isEmpty() ? "" : directory.resolve(files[1]).toString()));
+		}
+		return testFiles;
+	}
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import testsmell.TestFile;
+import testsmell.TestSmellDetector;
+
+/**
+ * Detects the smells of the whole corpus from disk, i.e. reading, parsing and
+ * analyzing every file, as Main does. Every invocation uses a new detector, so
+ * no parsed production file is reused between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetectSmellsBenchmark {
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private Path corpusDir;
+
+	@Setup
+	public void setUp() throws IOException {
+		corpusDir = Files.createTempDirectory("corpus");
+		Corpus.extract(corpusDir);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(corpusDir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public List<TestFile> detectSmells() throws IOException {
+		return TestSmellDetector.createTestSmellDetector().detectSmells(Corpus.createTestFiles(corpusDir), threads);
+	}
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import extractTestFiles.FindClasses;
+
+/**
+ * Pairs the test files of a project layout with its production files. One in
+ * ten production classes shares its name with a class of another package, and
+ * one in four has no test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMatchesBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int productionFiles;
+
+	private Set<String> tests;
+	private Set<String> productions;
+
+	@Setup
+	public void setUp() {
+		tests = new HashSet<>();
+		productions = new HashSet<>();
+		for (int i = 0; i < productionFiles; i++) {
+			String packagePath = "org/example/module" + (i % 20) + "/package" + (i % 7);
+			String className = "Class" + (i % 10 == 0 ? i / 10 : i);
+			productions.add("/project/src/main/java/" + packagePath + "/" + className + ".java");
+			if (i % 4 != 0)
+				tests.add("/project/src/test/java/" + packagePath + "/" + className + "Test.java");
+		}
+	}
+
+	@Benchmark
+	public Map<String, String> findMatches() {
+		return FindClasses.findMatches(tests, productions);
+	}
+}
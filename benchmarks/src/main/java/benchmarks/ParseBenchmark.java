@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import testsmell.TestFile;
+import testsmell.TestSmellDetector;
+
+/**
+ * Splits the cost of a file into parsing it and analyzing the parsed file for
+ * all smells in one walk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	private List<String> testSources;
+	private List<String> productionSources;
+	private List<CompilationUnit[]> units;
+	private TestSmellDetector testSmellDetector;
+
+	@Setup
+	public void setUp() {
+		testSources = new ArrayList<>();
+		productionSources = new ArrayList<>();
+		for (String[] files : Corpus.FILES) {
+			testSources.add(Corpus.read(files[0]));
+			if (!files[1].isEmpty())
+				productionSources.add(Corpus.read(files[1]));
+		}
+		units = Corpus.parse();
+		testSmellDetector = TestSmellDetector.createTestSmellDetector();
+	}
+
+	@Benchmark
+	public void parseTestFiles(Blackhole blackhole) {
+		for (String source : testSources)
+			blackhole.consume(JavaParser.parse(source));
+	}
+
+	@Benchmark
+	public void parseProductionFiles(Blackhole blackhole) {
+		for (String source : productionSources)
+			blackhole.consume(JavaParser.parse(source));
+	}
+
+	@Benchmark
+	public void analyzeParsedFiles(Blackhole blackhole) {
+		for (int i = 0; i < units.size(); i++) {
+			TestFile testFile = new TestFile("corpus", Corpus.FILES[i][0], Corpus.FILES[i][1]);
+			blackhole.consume(testSmellDetector.detectSmells(testFile, units.get(i)[0], units.get(i)[1]));
+		}
+	}
+}
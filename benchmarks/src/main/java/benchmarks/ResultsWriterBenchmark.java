@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import testsmell.ResultsWriter;
+import testsmell.TestSmellDetector;
+
+/**
+ * Writes a project's worth of rows, shaped like the detector output, into a
+ * temporary CSV file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultsWriterBenchmark {
+
+	@Param({ "10000" })
+	public int rows;
+
+	private File outputFile;
+	private List<String> columnNames;
+	private List<List<String>> columnValues;
+
+	@Setup
+	public void setUp() throws IOException {
+		outputFile = File.createTempFile("smells", ".csv");
+		columnNames = TestSmellDetector.createTestSmellDetector().getTestSmellNames();
+		columnNames.add(0, "Test Methods");
+		columnValues = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			List<String> row = new ArrayList<>();
+			row.add("SomeClassTest.testMethod" + i);
+			for (int j = 1; j < columnNames.size(); j++)
+				row.add((i + j) % 7 == 0 ? "true" : (i + j) % 5 == 0 ? "False" : "false");
+			columnValues.add(row);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		outputFile.delete();
+	}
+
+	@Benchmark
+	public void writeRows() throws IOException {
+		try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(outputFile,
+				ResultsWriter.DEFAULT_BUFFER_SIZE, ResultsWriter.DEFAULT_FLUSH_INTERVAL_MILLIS)) {
+			resultsWriter.writeColumnName(columnNames);
+			for (List<String> row : columnValues)
+				resultsWriter.writeLine(row);
+		}
+	}
+}
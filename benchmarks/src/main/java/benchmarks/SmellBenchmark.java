@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import testsmell.AbstractSmell;
+import testsmell.TestFile;
+
+/**
+ * Analyzes the parsed corpus for a single smell, each smell walking the test
+ * files on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmellBenchmark {
+
+	@Param({ "AssertionRoulette", "ConditionalTestLogic", "EmptyTest", "ExceptionCatchingThrowing",
+			"GeneralFixture", "MysteryGuest", "PrintStatement", "RedundantAssertion", "SensitiveEquality",
+			"VerboseTest", "SleepyTest", "EagerTest", "DuplicateAssert", "UnknownTest", "ResourceOptimism",
+			"MagicNumberTest" })
+	public String smell;
+
+	private AbstractSmell analyzer;
+	private List<CompilationUnit[]> units;
+
+	@Setup
+	public void setUp() throws ReflectiveOperationException {
+		analyzer = (AbstractSmell) Class.forName("testsmell.smell." + smell).getDeclaredConstructor().newInstance();
+		units = Corpus.parse();
+	}
+
+	@Benchmark
+	public void analyze(Blackhole blackhole) {
+		for (int i = 0; i < units.size(); i++) {
+			TestFile testFile = new TestFile("corpus", Corpus.FILES[i][0], Corpus.FILES[i][1]);
+			try {
+				blackhole.consume(analyzer.runAnalysis(testFile, units.get(i)[0], units.get(i)[1],
+						Corpus.FILES[i][0], Corpus.FILES[i][1]));
+			} catch (FileNotFoundException e) {
+				// Eager Test is not analyzed for tests without a production file
+				blackhole.consume(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,401 @@
+package syntheticCorpus;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.opencsv.CSVWriter;
+
+/**
+ * Generates synthetic projects of JUnit test classes and the production
+ * classes they test, together with their inputPaths CSV, for scale and stress
+ * testing of the detector. The output depends only on the options, so a seed
+ * always reproduces the same corpus; each class is generated from its own
+ * random stream, so adding classes does not change the existing ones.
+ * <p>
+ * Usage: <code>java syntheticCorpus.CorpusGenerator [--option value]...</code>
+ * with the options
+ * <ul>
+ * <li>--seed: the seed of the corpus (1)</li>
+ * <li>--output: the directory the projects are written into
+ * (syntheticCorpus)</li>
+ * <li>--input-paths: the directory the CSV files are written into
+ * (inputPaths)</li>
+ * <li>--projects: the number of projects (1)</li>
+ * <li>--classes: the number of test classes per project (100)</li>
+ * <li>--methods: the number of methods per class (uniform:1:20)</li>
+ * <li>--statements: the number of statements per test method
+ * (lognormal:6:60)</li>
+ * <li>--assert-density: the share of statements that are assertions
+ * (0.3)</li>
+ * <li>--nesting: the maximum depth of nested if/for blocks (2)</li>
+ * <li>--smell-rate: the share of test methods given an extra smell (0.2)</li>
+ * <li>--unpaired-rate: the share of test classes without a production class
+ * (0.05)</li>
+ * </ul>
+ * Sizes are either a number, <code>uniform:MIN:MAX</code> or
+ * <code>lognormal:MEDIAN:MAX</code> for a long tail of large classes.
+ */
+public class CorpusGenerator {
+
+	/**
+	 * The smells that are planted into test methods on top of the ones that the
+	 * generated code has by itself (e.g. Assertion Roulette, Eager Test)
+	 */
+	private enum Smell {
+		EMPTY, CONDITIONAL, EXCEPTION, MYSTERY_GUEST, PRINT, REDUNDANT, SENSITIVE, VERBOSE, SLEEPY, DUPLICATE,
+		UNKNOWN, MAGIC_NUMBER
+	}
+
+	/**
+	 * The number of statements that makes a test method verbose, see VerboseTest
+	 */
+	private static final int VERBOSE_STATEMENTS = 130;
+
+	private long seed = 1;
+	private File outputDir = new File("syntheticCorpus");
+	private File inputPathsDir = new File("inputPaths");
+	private int projects = 1;
+	private int classes = 100;
+	private SizeDistribution methodsPerClass = SizeDistribution.parse("uniform:1:20");
+	private SizeDistribution statementsPerMethod = SizeDistribution.parse("lognormal:6:60");
+	private double assertDensity = 0.3;
+	private int maxNesting = 2;
+	private double smellRate = 0.2;
+	private double unpairedRate = 0.05;
+
+	public static void main(String[] args) throws IOException {
+		CorpusGenerator generator = new CorpusGenerator();
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value of " + args[i]);
+			generator.setOption(args[i], args[i + 1]);
+		}
+		generator.generate();
+	}
+
+	/**
+	 * Sets an option by its command line name, e.g. "--classes"
+	 */
+	public void setOption(String name, String value) {
+		switch (name) {
+		case "--seed":
+			seed = Long.parseLong(value);
+			break;
+		case "--output":
+			outputDir = new File(value);
+			break;
+		case "--input-paths":
+			inputPathsDir = new File(value);
+			break;
+		case "--projects":
+			projects = Integer.parseInt(value);
+			break;
+		case "--classes":
+			classes = Integer.parseInt(value);
+			break;
+		case "--methods":
+			methodsPerClass = SizeDistribution.parse(value);
+			break;
+		case "--statements":
+			statementsPerMethod = SizeDistribution.parse(value);
+			break;
+		case "--assert-density":
+			assertDensity = Double.parseDouble(value);
+			break;
+		case "--nesting":
+			maxNesting = Integer.parseInt(value);
+			break;
+		case "--smell-rate":
+			smellRate = Double.parseDouble(value);
+			break;
+		case "--unpaired-rate":
+			unpairedRate = Double.parseDouble(value);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown option " + name);
+		}
+	}
+
+	/**
+	 * Writes all projects and their CSV files
+	 */
+	public void generate() throws IOException {
+		Files.createDirectories(inputPathsDir.toPath());
+		for (int project = 0; project < projects; project++) {
+			String projectName = "synthetic" + project;
+			String projectPath = new File(outputDir, projectName).getAbsolutePath().replace('\\', '/');
+			try (CSVWriter csvWriter = new CSVWriter(new FileWriter(new File(inputPathsDir, projectName + ".csv")),
+					CSVWriter.DEFAULT_SEPARATOR, CSVWriter.NO_QUOTE_CHARACTER)) {
+				for (int index = 0; index < classes; index++) {
+					Random random = new Random(seed * 1_000_003L + project * 65_537L + index);
+					String[] paths = generateClass(random, projectPath, index);
+					csvWriter.writeNext(new String[] { projectName, paths[0], paths[1] });
+				}
+			}
+			System.out.println("generated " + projectPath);
+		}
+	}
+
+	/**
+	 * Writes a test class and, unless it is unpaired, its production class
+	 *
+	 * @return the path of the test file and the path of the production file, empty
+	 *         if there is none
+	 */
+	private String[] generateClass(Random random, String projectPath, int index) throws IOException {
+		String packageName = "org.synthetic.module" + (index % 10);
+		String className = "Component" + index;
+		String packagePath = packageName.replace('.', '/');
+
+		int operations = Math.max(1, methodsPerClass.sample(random));
+		int[] arities = new int[operations];
+		for (int i = 0; i < operations; i++)
+			arities[i] = random.nextInt(4);
+
+		String productionPath = "";
+		if (random.nextDouble() >= unpairedRate) {
+			productionPath = projectPath + "/src/main/java/" + packagePath + "/" + className + ".java";
+			write(productionPath, generateProductionClass(packageName, className, arities));
+		}
+		String testPath = projectPath + "/src/test/java/" + packagePath + "/" + className + "Test.java";
+		write(testPath, generateTestClass(random, packageName, className, arities));
+		return new String[] { testPath, productionPath };
+	}
+
+	private static void write(String path, String content) throws IOException {
+		File file = new File(path);
+		Files.createDirectories(file.getParentFile().toPath());
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(content);
+		}
+	}
+
+	private String generateProductionClass(String packageName, String className, int[] arities) {
+		StringBuilder out = new StringBuilder();
+		out.append("package ").append(packageName).append(";\n\n");
+		out.append("public class ").append(className).append(" {\n\n");
+		out.append("\tprivate int state;\n\n");
+		for (int i = 0; i < arities.length; i++) {
+			out.append("\tpublic int operation").append(i).append("(");
+			for (int j = 0; j < arities[i]; j++)
+				out.append(j > 0 ? ", " : "").append("int a").append(j);
+			out.append(") {\n\t\tstate += ").append(i);
+			for (int j = 0; j < arities[i]; j++)
+				out.append(" + a").append(j);
+			out.append(";\n\t\treturn state;\n\t}\n\n");
+		}
+		out.append("\t@Override\n\tpublic String toString() {\n\t\treturn \"").append(className)
+				.append("[\" + state + \"]\";\n\t}\n}\n");
+		return out.toString();
+	}
+
+	private String generateTestClass(Random random, String packageName, String className, int[] arities) {
+		StringBuilder out = new StringBuilder();
+		out.append("package ").append(packageName).append(";\n\n");
+		out.append("import static org.junit.Assert.*;\n\n");
+		out.append("import java.io.File;\n\n");
+		out.append("import org.junit.Before;\nimport org.junit.Test;\n\n");
+		out.append("public class ").append(className).append("Test {\n\n");
+		out.append("\tprivate ").append(className).append(" subject;\n");
+		out.append("\tprivate ").append(className).append(" other;\n\n");
+		out.append("\t@Before\n\tpublic void setUp() {\n");
+		out.append("\t\tsubject = new ").append(className).append("();\n");
+		out.append("\t\tother = new ").append(className).append("();\n\t}\n");
+
+		int testMethods = Math.max(1, methodsPerClass.sample(random));
+		for (int i = 0; i < testMethods; i++) {
+			Smell smell = random.nextDouble() < smellRate ? Smell.values()[random.nextInt(Smell.values().length)]
+					: null;
+			out.append("\n\t@Test\n\tpublic void testOperation").append(i).append("()")
+					.append(smell == Smell.SLEEPY ? " throws InterruptedException" : "").append(" {\n");
+			if (smell != Smell.EMPTY)
+				generateTestBody(random, out, arities, smell);
+			out.append("\t}\n");
+		}
+		out.append("}\n");
+		return out.toString();
+	}
+
+	private void generateTestBody(Random random, StringBuilder out, int[] arities, Smell smell) {
+		MethodWriter writer = new MethodWriter(random, out, arities, smell == Smell.UNKNOWN ? 0 : assertDensity);
+		List<String> variables = new ArrayList<>();
+		writer.line("\t\t", "int seed = " + random.nextInt(10) + ";");
+		variables.add("seed");
+		if (random.nextBoolean()) {
+			writer.line("\t\t", "int shared = other.operation0(" + writer.arguments(arities[0], variables) + ");");
+			variables.add("shared");
+		}
+
+		if (smell == Smell.VERBOSE) {
+			// only top level statements count, so no blocks are opened
+			writer.statements(VERBOSE_STATEMENTS, maxNesting, "\t\t", variables);
+			return;
+		}
+		writer.statements(statementsPerMethod.sample(random), 0, "\t\t", variables);
+
+		if (smell == null || smell == Smell.UNKNOWN)
+			return;
+		String variable = variables.get(random.nextInt(variables.size()));
+		switch (smell) {
+		case CONDITIONAL:
+			writer.line("\t\t", "if (" + variable + " % 2 == 0) {");
+			writer.line("\t\t\t", "assertTrue(\"even\", " + variable + " >= 0);");
+			writer.line("\t\t", "}");
+			break;
+		case EXCEPTION:
+			writer.line("\t\t", "try {");
+			writer.line("\t\t\t", "subject.operation0(" + writer.arguments(arities[0], variables) + ");");
+			writer.line("\t\t", "} catch (RuntimeException e) {");
+			writer.line("\t\t\t", "throw new IllegalStateException(e);");
+			writer.line("\t\t", "}");
+			break;
+		case MYSTERY_GUEST:
+			writer.line("\t\t", "File file = new File(\"data/input" + random.nextInt(100) + ".txt\");");
+			writer.line("\t\t", "assertTrue(\"readable\", file.canRead());");
+			break;
+		case PRINT:
+			writer.line("\t\t", "System.out.println(" + variable + ");");
+			break;
+		case REDUNDANT:
+			writer.line("\t\t", "assertTrue(true);");
+			break;
+		case SENSITIVE:
+			writer.line("\t\t", "assertEquals(\"state\", \"x\", subject.toString());");
+			break;
+		case SLEEPY:
+			writer.line("\t\t", "Thread.sleep(" + (1 + random.nextInt(100)) + ");");
+			break;
+		case DUPLICATE:
+			writer.line("\t\t", "assertEquals(\"same\", " + variable + ", " + variable + " + 0);");
+			writer.line("\t\t", "assertEquals(\"same\", " + variable + ", " + variable + " + 0);");
+			break;
+		case MAGIC_NUMBER:
+			writer.line("\t\t", "assertEquals(\"magic\", " + (2 + random.nextInt(1000)) + ", " + variable + ");");
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Writes the statements of a test method
+	 */
+	private class MethodWriter {
+		private final Random random;
+		private final StringBuilder out;
+		private final int[] arities;
+		private final double assertDensity;
+		private int nextVariable = 0;
+
+		private MethodWriter(Random random, StringBuilder out, int[] arities, double assertDensity) {
+			this.random = random;
+			this.out = out;
+			this.arities = arities;
+			this.assertDensity = assertDensity;
+		}
+
+		private void line(String indent, String statement) {
+			out.append(indent).append(statement).append('\n');
+		}
+
+		/**
+		 * Writes about the given number of statements, counting the statements inside
+		 * blocks; variables declared in a block are only used inside of it
+		 */
+		private void statements(int count, int depth, String indent, List<String> variables) {
+			int written = 0;
+			while (written < count) {
+				double roll = random.nextDouble();
+				if (depth < maxNesting && count - written > 2 && roll < 0.1) {
+					int inner = 1 + random.nextInt(Math.min(5, count - written - 1));
+					List<String> scope = new ArrayList<>(variables);
+					if (random.nextBoolean()) {
+						line(indent, "for (int i" + depth + " = 0; i" + depth + " < 3; i" + depth + "++) {");
+						scope.add("i" + depth);
+					} else {
+						line(indent, "if (" + pick(variables) + " > " + pick(variables) + ") {");
+					}
+					statements(inner, depth + 1, indent + "\t", scope);
+					line(indent, "}");
+					written += 1 + inner;
+				} else if (roll < 0.1 + assertDensity) {
+					assertion(indent, variables);
+					written++;
+				} else {
+					String variable = "v" + nextVariable++;
+					int operation = random.nextInt(arities.length);
+					line(indent, "int " + variable + " = subject.operation" + operation + "("
+							+ arguments(arities[operation], variables) + ");");
+					variables.add(variable);
+					written++;
+				}
+			}
+		}
+
+		private void assertion(String indent, List<String> variables) {
+			// about half of the assertions have no message
+			String message = random.nextBoolean() ? "\"checked\", " : "";
+			if (random.nextBoolean()) {
+				int operation = random.nextInt(arities.length);
+				line(indent, "assertEquals(" + message + pick(variables) + ", subject.operation" + operation + "("
+						+ arguments(arities[operation], variables) + "));");
+			} else {
+				line(indent, "assertTrue(" + message + pick(variables) + " >= " + pick(variables) + ");");
+			}
+		}
+
+		private String arguments(int arity, List<String> variables) {
+			StringBuilder arguments = new StringBuilder();
+			for (int i = 0; i < arity; i++)
+				arguments.append(i > 0 ? ", " : "").append(pick(variables));
+			return arguments.toString();
+		}
+
+		private String pick(List<String> variables) {
+			return variables.get(random.nextInt(variables.size()));
+		}
+	}
+
+	/**
+	 * A distribution of sizes, e.g. of the number of methods in a class
+	 */
+	private static class SizeDistribution {
+		private final boolean logNormal;
+		private final int first;
+		private final int max;
+
+		private SizeDistribution(boolean logNormal, int first, int max) {
+			this.logNormal = logNormal;
+			this.first = first;
+			this.max = max;
+		}
+
+		/**
+		 * Parses "N", "uniform:MIN:MAX" or "lognormal:MEDIAN:MAX"
+		 */
+		private static SizeDistribution parse(String value) {
+			String[] parts = value.split(":");
+			if (parts.length == 1)
+				return new SizeDistribution(false, Integer.parseInt(parts[0]), Integer.parseInt(parts[0]));
+			if (parts.length == 3 && (parts[0].equals("uniform") || parts[0].equals("lognormal")))
+				return new SizeDistribution(parts[0].equals("lognormal"), Integer.parseInt(parts[1]),
+						Integer.parseInt(parts[2]));
+			throw new IllegalArgumentException("Not a size distribution: " + value);
+		}
+
+		private int sample(Random random) {
+			if (!logNormal)
+				return first + random.nextInt(max - first + 1);
+			// the median is 'first', with sizes ten times larger about once in a hundred
+			long size = Math.round(first * Math.exp(random.nextGaussian()));
+			return (int) Math.max(1, Math.min(max, size));
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package org.example.calc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A small reverse polish notation calculator.
+ */
+public class Calculator {
+
+	private final Deque<Double> stack = new ArrayDeque<>();
+	private int operations;
+
+	public void push(double value) {
+		stack.push(value);
+	}
+
+	public double pop() {
+		if (stack.isEmpty())
+			throw new IllegalStateException("empty stack");
+		return stack.pop();
+	}
+
+	public double peek() {
+		return stack.peek();
+	}
+
+	public int size() {
+		return stack.size();
+	}
+
+	public boolean isEmpty() {
+		return stack.isEmpty();
+	}
+
+	public void clear() {
+		stack.clear();
+		operations = 0;
+	}
+
+	public double add() {
+		return apply('+');
+	}
+
+	public double subtract() {
+		return apply('-');
+	}
+
+	public double multiply() {
+		return apply('*');
+	}
+
+	public double divide() {
+		if (stack.peek() == 0)
+			throw new ArithmeticException("division by zero");
+		return apply('/');
+	}
+
+	public double evaluate(String expression) {
+		for (String token : expression.trim().split("\\s+")) {
+			if (token.length() == 1 && "+-*/".indexOf(token.charAt(0)) >= 0)
+				apply(token.charAt(0));
+			else
+				push(Double.parseDouble(token));
+		}
+		return pop();
+	}
+
+	public int getOperations() {
+		return operations;
+	}
+
+	protected double apply(char operator) {
+		double right = pop();
+		double left = pop();
+		double result;
+		switch (operator) {
+		case '+':
+			result = left + right;
+			break;
+		case '-':
+			result = left - right;
+			break;
+		case '*':
+			result = left * right;
+			break;
+		case '/':
+			result = left / right;
+			break;
+		default:
+			throw new IllegalArgumentException("unknown operator " + operator);
+		}
+		operations++;
+		push(result);
+		return result;
+	}
+
+	public static Calculator of(double... values) {
+		Calculator calculator = new Calculator();
+		for (double value : values)
+			calculator.push(value);
+		return calculator;
+	}
+
+	@Override
+	public String toString() {
+		return "Calculator" + stack;
+	}
+}
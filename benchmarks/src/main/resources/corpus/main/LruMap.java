@@ -0,0 +1,122 @@
+package org.example.collect;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A map that evicts its least recently used entry once it holds more than its
+ * capacity.
+ */
+public class LruMap<K, V> {
+
+	private static final class Node<K, V> {
+		private final K key;
+		private V value;
+		private Node<K, V> previous;
+		private Node<K, V> next;
+
+		private Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	private final Map<K, Node<K, V>> nodes = new HashMap<>();
+	private final int capacity;
+	private Node<K, V> head;
+	private Node<K, V> tail;
+	private int evictions;
+
+	public LruMap(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.capacity = capacity;
+	}
+
+	public V get(K key) {
+		Node<K, V> node = nodes.get(key);
+		if (node == null)
+			return null;
+		moveToFront(node);
+		return node.value;
+	}
+
+	public V put(K key, V value) {
+		Node<K, V> node = nodes.get(key);
+		if (node != null) {
+			V previous = node.value;
+			node.value = value;
+			moveToFront(node);
+			return previous;
+		}
+		node = new Node<>(key, value);
+		nodes.put(key, node);
+		addFirst(node);
+		if (nodes.size() > capacity)
+			evict();
+		return null;
+	}
+
+	public V remove(K key) {
+		Node<K, V> node = nodes.remove(key);
+		if (node == null)
+			return null;
+		unlink(node);
+		return node.value;
+	}
+
+	public boolean containsKey(K key) {
+		return nodes.containsKey(key);
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getEvictions() {
+		return evictions;
+	}
+
+	public K eldestKey() {
+		return tail == null ? null : tail.key;
+	}
+
+	protected void evict() {
+		Node<K, V> eldest = tail;
+		unlink(eldest);
+		nodes.remove(eldest.key);
+		evictions++;
+	}
+
+	private void moveToFront(Node<K, V> node) {
+		unlink(node);
+		addFirst(node);
+	}
+
+	private void addFirst(Node<K, V> node) {
+		node.next = head;
+		node.previous = null;
+		if (head != null)
+			head.previous = node;
+		head = node;
+		if (tail == null)
+			tail = node;
+	}
+
+	private void unlink(Node<K, V> node) {
+		if (node.previous != null)
+			node.previous.next = node.next;
+		else
+			head = node.next;
+		if (node.next != null)
+			node.next.previous = node.previous;
+		else
+			tail = node.previous;
+		node.previous = null;
+		node.next = null;
+	}
+}
@@ -0,0 +1,107 @@
+package org.example.text;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A mutable buffer of text lines with a cursor.
+ */
+public class TextBuffer {
+
+	private final List<String> lines = new ArrayList<>();
+	private int cursor;
+
+	public TextBuffer() {
+	}
+
+	public TextBuffer(String text) {
+		append(text);
+	}
+
+	public void append(String text) {
+		for (String line : text.split("\n", -1))
+			lines.add(line);
+	}
+
+	public void insert(int index, String line) {
+		lines.add(index, line);
+		if (index <= cursor)
+			cursor++;
+	}
+
+	public String remove(int index) {
+		if (index < cursor)
+			cursor--;
+		return lines.remove(index);
+	}
+
+	public String getLine(int index) {
+		return lines.get(index);
+	}
+
+	public int getLineCount() {
+		return lines.size();
+	}
+
+	public int getCursor() {
+		return cursor;
+	}
+
+	public void moveCursor(int delta) {
+		cursor = Math.max(0, Math.min(lines.size() - 1, cursor + delta));
+	}
+
+	public String currentLine() {
+		return lines.isEmpty() ? "" : lines.get(cursor);
+	}
+
+	public int find(String text) {
+		for (int i = cursor; i < lines.size(); i++) {
+			if (lines.get(i).contains(text))
+				return i;
+		}
+		return -1;
+	}
+
+	public int replaceAll(String target, String replacement) {
+		int count = 0;
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			if (line.contains(target)) {
+				lines.set(i, line.replace(target, replacement));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int length() {
+		int length = 0;
+		for (String line : lines)
+			length += line.length() + 1;
+		return Math.max(0, length - 1);
+	}
+
+	public static TextBuffer load(File file) throws IOException {
+		TextBuffer buffer = new TextBuffer();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null)
+				buffer.lines.add(line);
+		}
+		return buffer;
+	}
+
+	protected List<String> getLines() {
+		return lines;
+	}
+
+	@Override
+	public String toString() {
+		return String.join("\n", lines);
+	}
+}
@@ -0,0 +1,113 @@
+package org.example.calc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CalculatorTest {
+
+	private Calculator calculator;
+	private Calculator filled;
+	private double[] values;
+
+	@Before
+	public void setUp() {
+		calculator = new Calculator();
+		filled = Calculator.of(1, 2, 3);
+		values = new double[] { 4, 5, 6 };
+	}
+
+	@Test
+	public void testPushPop() {
+		calculator.push(1);
+		calculator.push(2);
+		assertEquals(2, calculator.size());
+		assertEquals(2.0, calculator.pop(), 0.0);
+		assertEquals(1.0, calculator.pop(), 0.0);
+		assertTrue(calculator.isEmpty());
+	}
+
+	@Test
+	public void testAdd() {
+		calculator.push(1);
+		calculator.push(2);
+		assertEquals("1 + 2", 3.0, calculator.add(), 0.0);
+	}
+
+	@Test
+	public void testFilled() {
+		assertEquals(3, filled.size());
+		assertEquals(6.0, filled.add() + filled.add() - 3, 0.0);
+	}
+
+	@Test
+	public void testAllOperations() {
+		for (double value : values) {
+			calculator.push(value);
+		}
+		calculator.add();
+		calculator.multiply();
+		if (calculator.size() != 1) {
+			fail();
+		}
+		assertEquals(44.0, calculator.peek(), 0.0);
+	}
+
+	@Test
+	public void testDivideByZero() {
+		calculator.push(1);
+		calculator.push(0);
+		try {
+			calculator.divide();
+			fail("expected an exception");
+		} catch (ArithmeticException e) {
+			assertEquals("division by zero", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEvaluate() throws Exception {
+		assertEquals(7.0, calculator.evaluate("1 2 3 * +"), 0.0);
+		assertEquals(7.0, calculator.evaluate("1 2 3 * +"), 0.0);
+		assertEquals(2, calculator.getOperations());
+	}
+
+	@Test
+	public void testToString() {
+		calculator.push(1);
+		assertEquals("Calculator[1.0]", calculator.toString());
+	}
+
+	@Test
+	public void testClear() {
+		calculator.push(1);
+		calculator.clear();
+		assertTrue(true);
+		assertFalse(calculator.size() > 0);
+	}
+
+	@Test
+	public void testNothingYet() {
+	}
+
+	@Test
+	public void testEvaluateSwitch() {
+		String[] expressions = { "1 1 +", "4 2 /", "3 3 *" };
+		double total = 0;
+		for (int i = 0; i < expressions.length; i++) {
+			switch (i) {
+			case 0:
+				total += calculator.evaluate(expressions[i]);
+				break;
+			default:
+				total += calculator.evaluate(expressions[i]) * 2;
+			}
+		}
+		System.out.println("total " + total);
+		assertEquals(24.0, total, 0.0);
+	}
+}
@@ -0,0 +1,69 @@
+package org.example.fixtures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+/**
+ * Tests without a production class of their own.
+ */
+public class FixturesTest {
+
+	@Test
+	public void testLoadProperties() throws IOException {
+		File file = new File("src/test/resources/fixture.properties");
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		assertEquals("fixture", properties.getProperty("name"));
+	}
+
+	@Test
+	public void testListBehaviour() {
+		List<String> list = new ArrayList<>();
+		list.add("a");
+		list.add("b");
+		assertEquals(2, list.size());
+		assertEquals(2, list.size());
+		assertEquals("[a, b]", list.toString());
+	}
+
+	@Test
+	public void testCondition() {
+		int sum = 0;
+		for (int i = 0; i < 10; i++) {
+			sum += i % 3 == 0 ? i : 0;
+		}
+		assertTrue(sum == 18);
+	}
+
+	@Test
+	public void testNotNull() throws Exception {
+		Object value = new Object();
+		Thread.sleep(10);
+		assertNotNull(value);
+		assertNotNull(value.toString());
+	}
+
+	@Test
+	public void testThrows() throws Exception {
+		Object value = null;
+		if (value != null) {
+			throw new IllegalStateException("unexpected");
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package org.example.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LruMapTest {
+
+	private LruMap<String, Integer> map;
+	private LruMap<String, Integer> full;
+
+	@Before
+	public void setUp() {
+		map = new LruMap<>(3);
+		full = new LruMap<>(2);
+		full.put("a", 1);
+		full.put("b", 2);
+	}
+
+	@Test
+	public void testPutGet() {
+		map.put("a", 1);
+		assertEquals(Integer.valueOf(1), map.get("a"));
+	}
+
+	@Test
+	public void testEviction() {
+		full.put("c", 3);
+		assertFalse(full.containsKey("a"));
+		assertEquals(1, full.getEvictions());
+		assertEquals("b", full.eldestKey());
+	}
+
+	@Test
+	public void testGetRefreshes() {
+		full.get("a");
+		full.put("c", 3);
+		assertTrue("a was used last", full.containsKey("a"));
+		assertFalse("b was evicted", full.containsKey("b"));
+	}
+
+	@Test
+	public void testRemove() {
+		map.put("a", 1);
+		map.put("b", 2);
+		assertEquals(Integer.valueOf(1), map.remove("a"));
+		assertNull(map.remove("a"));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testManyEntries() {
+		LruMap<Integer, Integer> large = new LruMap<>(100);
+		for (int i = 0; i < 1000; i++) {
+			large.put(i, i * i);
+			if (i % 100 == 0) {
+				assertEquals(Math.min(i + 1, 100), large.size());
+			}
+		}
+		int hits = 0;
+		int i = 0;
+		while (i < 1000) {
+			if (large.get(i) != null)
+				hits++;
+			i++;
+		}
+		assertEquals(100, hits);
+		assertEquals(900, large.getEvictions());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroCapacity() {
+		new LruMap<String, String>(0);
+	}
+
+	@Test
+	public void testReplace() throws InterruptedException {
+		map.put("a", 1);
+		Integer previous = map.put("a", 2);
+		assertEquals(Integer.valueOf(1), previous);
+		assertEquals(Integer.valueOf(2), map.get("a"));
+		assertEquals(Integer.valueOf(2), map.get("a"));
+	}
+
+	@Test
+	public void testCapacity() {
+		assertEquals(3, map.getCapacity());
+		assertEquals(2, full.getCapacity());
+	}
+}
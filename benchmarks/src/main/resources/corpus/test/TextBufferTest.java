@@ -0,0 +1,120 @@
+package org.example.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TextBufferTest {
+
+	@Test
+	public void testAppend() {
+		TextBuffer buffer = new TextBuffer();
+		buffer.append("a\nb");
+		assertEquals(2, buffer.getLineCount());
+		assertEquals("a", buffer.getLine(0));
+		assertEquals("b", buffer.getLine(1));
+	}
+
+	@Test
+	public void testInsertMovesCursor() {
+		TextBuffer buffer = new TextBuffer("one\ntwo\nthree");
+		buffer.moveCursor(2);
+		buffer.insert(0, "zero");
+		assertEquals("cursor follows its line", 3, buffer.getCursor());
+	}
+
+	@Test
+	public void testRemove() {
+		TextBuffer buffer = new TextBuffer("one\ntwo");
+		String removed = buffer.remove(0);
+		assertEquals("one", removed);
+	}
+
+	@Test
+	public void testFindAndReplace() {
+		TextBuffer buffer = new TextBuffer("foo bar\nbar baz\nqux");
+		int found = buffer.find("baz");
+		int replaced = buffer.replaceAll("bar", "BAR");
+		buffer.moveCursor(found);
+		assertEquals(1, found);
+		assertEquals(2, replaced);
+		assertEquals("BAR baz", buffer.currentLine());
+	}
+
+	@Test
+	public void testToString() {
+		TextBuffer buffer = new TextBuffer("a\nb\nc");
+		assertTrue(buffer.toString().equals("a\nb\nc"));
+		assertEquals(5, buffer.length());
+	}
+
+	@Test
+	public void testLoad() throws IOException {
+		File file = new File("build/tmp/text.txt");
+		FileWriter writer = new FileWriter(file);
+		writer.write("first\nsecond\n");
+		writer.close();
+		TextBuffer buffer = TextBuffer.load(file);
+		assertNotNull(buffer);
+		assertEquals(2, buffer.getLineCount());
+	}
+
+	@Test
+	public void testLoadSlowDisk() throws Exception {
+		File file = new File("build/tmp/slow.txt");
+		Thread.sleep(100);
+		if (file.exists()) {
+			assertEquals(0, TextBuffer.load(file).getLineCount());
+		}
+	}
+
+	@Test
+	public void testLongEditingSession() {
+		TextBuffer buffer = new TextBuffer();
+		buffer.append("line 1");
+		buffer.append("line 2");
+		buffer.append("line 3");
+		buffer.append("line 4");
+		buffer.append("line 5");
+		buffer.insert(0, "line 0");
+		buffer.insert(6, "line 6");
+		buffer.moveCursor(1);
+		buffer.moveCursor(1);
+		buffer.moveCursor(1);
+		buffer.moveCursor(-1);
+		buffer.remove(3);
+		buffer.remove(3);
+		buffer.insert(3, "line 3");
+		buffer.insert(4, "line 4");
+		buffer.replaceAll("line", "row");
+		buffer.replaceAll("row 6", "last row");
+		buffer.moveCursor(10);
+		buffer.moveCursor(-10);
+		buffer.find("row 4");
+		buffer.append("trailer");
+		buffer.remove(buffer.getLineCount() - 1);
+		buffer.insert(0, "header");
+		buffer.remove(0);
+		buffer.moveCursor(2);
+		buffer.moveCursor(1);
+		buffer.replaceAll("row 0", "first row");
+		buffer.append("end");
+		buffer.remove(buffer.getLineCount() - 1);
+		assertEquals(7, buffer.getLineCount());
+		assertEquals("row 3", buffer.currentLine());
+		assertEquals("first row", buffer.getLine(0));
+	}
+
+	@Test
+	public void testDoesNotThrow() {
+		TextBuffer buffer = new TextBuffer("x");
+		buffer.moveCursor(42);
+		buffer.remove(0);
+	}
+}
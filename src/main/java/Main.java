@@ -1,20 +1,16 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import extractTestFiles.FindClasses;
-import testsmell.AbstractSmell;
-import testsmell.ResultsWriter;
-import testsmell.TestFile;
+import testsmell.Instrumentation;
+import testsmell.ProjectScheduler;
+import testsmell.ResultCache;
+import testsmell.SmellPipeline;
 import testsmell.TestSmellDetector;
 
 public class Main {
-	@SuppressWarnings("resource")
 	public static void main(String[] args) throws IOException {
 
 		String[] projects = { "/Users/Dor/Desktop/Coverage/cors-filter-cors-filter-1.0.1",
@@ -27,76 +23,44 @@ public class Main {
 				"/Users/Dor/Desktop/Coverage/commons-exec-1.3",
 				"/Users/Dor/Desktop/Coverage/commons-collections-collections-4.3-RC2" };
 
-		FindClasses.extractTestClassesToCSVs(projects);
-
-		for (String project : projects) {
-			String projectName = project.split("/")[project.split("/").length - 1];
-			TestSmellDetector testSmellDetector = TestSmellDetector.createTestSmellDetector();
-			/*
-			 * Read the input file and build the TestFile objects
-			 */
-			BufferedReader in = new BufferedReader(new FileReader("inputPaths/" + projectName + ".csv"));
-			String str;
-
-			String[] lineItem;
-			TestFile testFile;
-			List<TestFile> testFiles = new ArrayList<>();
-			while ((str = in.readLine()) != null) {
-				// use comma as separator
-				lineItem = str.split(",");
-
-				// check if the test file has an associated production file
-				if (lineItem.length == 2) {
-					testFile = new TestFile(lineItem[0], lineItem[1], "");
-				} else {
-					testFile = new TestFile(lineItem[0], lineItem[1], lineItem[2]);
-				}
+		// number of threads parsing, and of threads analyzing, test files, e.g.
+		// -Dtestsmell.threads=8
+		int threads = Integer.getInteger("testsmell.threads", Runtime.getRuntime().availableProcessors());
+		// threads reading files, and the number of test files between being read from
+		// the input and written, which bounds the memory used
+		int readers = Integer.getInteger("testsmell.readers", 2);
+		int maxInFlight = Integer.getInteger("testsmell.maxInFlight", 4 * threads);
+		// and their total size in bytes (test and production file), e.g.
+		// -Dtestsmell.maxInFlightBytes=67108864
+		long maxInFlightBytes = Long.getLong("testsmell.maxInFlightBytes", SmellPipeline.DEFAULT_MAX_IN_FLIGHT_BYTES);
 
-				testFiles.add(testFile);
-			}
+		// results of unchanged test files are reused from here, e.g.
+		// -Dtestsmell.cacheDir=/tmp/smells; an empty value disables the cache
+		String cacheDir = System.getProperty("testsmell.cacheDir", "resultCache");
+		ResultCache resultCache = cacheDir.isEmpty() ? null : ResultCache.createResultCache(cacheDir);
 
-			/*
-			 * Initialize the output file - Create the output file and add the column names
-			 */
-			ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(projectName);
-			List<String> columnNames;
-			List<String> columnValues;
+		// the cost of every phase and smell is dumped as profile.json and profile.csv
+		// into this directory, e.g. -Dtestsmell.profileDir=profile; every smell then
+		// walks the test files on its own
+		String profileDir = System.getProperty("testsmell.profileDir", "");
+		Instrumentation instrumentation = profileDir.isEmpty() ? null : Instrumentation.createInstrumentation();
 
-			columnNames = testSmellDetector.getTestSmellNames();
-			columnNames.add(0, "Test Methods");
-			resultsWriter.writeColumnName(columnNames);
-
-			/*
-			 * Iterate through all test files to detect smells and then write the output
-			 */
-			TestFile tempFile;
-			DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-			Date date;
-			for (TestFile file : testFiles) {
-				date = new Date();
-				System.out.println(dateFormat.format(date) + " Processing: " + file.getTestFilePath());
-				System.out.println("Processing: " + file.getTestFilePath());
-
-				// detect smells
-				tempFile = testSmellDetector.detectSmells(file);
-				for (String testMethod : file.getTestMethods()) {
-					columnValues = new ArrayList<>();
-					columnValues.add(testMethod);
-					for (AbstractSmell smell : tempFile.getTestSmells()) {
-						try {
-							columnValues.add(String
-									.valueOf(file.getSmellsMethods().get(smell.getSmellName()).contains(testMethod)));
-						} catch (NullPointerException e) {
-							columnValues.add("False");
-						}
-					}
-					resultsWriter.writeLine(columnValues);
-				}
+		FindClasses.extractTestClassesToCSVs(projects);
 
-			}
+		/*
+		 * Detect the smells of all projects, largest first, in the stages of one
+		 * pipeline, and write the output of each project in input order
+		 */
+		List<String> projectNames = new ArrayList<>();
+		for (String project : projects)
+			projectNames.add(project.split("/")[project.split("/").length - 1]);
+		TestSmellDetector testSmellDetector = TestSmellDetector.createTestSmellDetector(resultCache, instrumentation);
+		SmellPipeline smellPipeline = SmellPipeline.createSmellPipeline(testSmellDetector, readers, threads, threads,
+				maxInFlight, maxInFlightBytes);
+		ProjectScheduler.createProjectScheduler(testSmellDetector, smellPipeline).run(projectNames);
 
-			System.out.println("end");
-		}
+		if (instrumentation != null)
+			instrumentation.dump(new File(profileDir));
 	}
 
 }
@@ -1,37 +1,170 @@
 package extractTestFiles;
+
 import java.io.File;
- 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks a directory tree and passes the files a {@link Filter} is interested in
+ * to a {@link FileHandler}. Sub directories are explored in parallel, so both
+ * the filter and the handler must be thread-safe.
+ * <p>
+ * Directories matching one of the skip globs are not entered. A glob is matched
+ * against both the name of the directory and its path relative to the root,
+ * e.g. "target" skips every directory named target while "src/generated" only
+ * skips that one. Symbolic links to directories are followed, but every
+ * directory is entered at most once, which guards against link loops.
+ */
 public class DirExplorer {
-    public interface FileHandler {
-        void handle(int level, String path, File file);
-    }
- 
-    public interface Filter {
-        boolean interested(int level, String path, File file);
-    }
- 
-    private FileHandler fileHandler;
-    private Filter filter;
- 
-    public DirExplorer(Filter filter, FileHandler fileHandler) {
-        this.filter = filter;
-        this.fileHandler = fileHandler;
-    }
- 
-    public void explore(File root) {
-        explore(0, "", root);
-    }
- 
-    private void explore(int level, String path, File file) {
-        if (file.isDirectory()) {
-            for (File child : file.listFiles()) {
-                explore(level + 1, path + "/" + child.getName(), child);
-            }
-        } else {
-            if (filter.interested(level, path, file)) {
-                fileHandler.handle(level, path, file);
-            }
-        }
-    }
- 
-}
\ No newline at end of file
+	public interface FileHandler {
+		void handle(int level, String path, File file);
+	}
+
+	public interface Filter {
+		boolean interested(int level, String path, File file);
+	}
+
+	public interface DirectoryHandler {
+		void handle(int level, String path, File directory);
+	}
+
+	private FileHandler fileHandler;
+	private DirectoryHandler directoryHandler;
+	private Filter filter;
+	private List<PathMatcher> skipMatchers;
+	private int parallelism;
+
+	public DirExplorer(Filter filter, FileHandler fileHandler) {
+		this(filter, fileHandler, Collections.emptyList(), 1);
+	}
+
+	/**
+	 * @param skipGlobs
+	 *            globs of the directories that are not entered
+	 * @param parallelism
+	 *            the maximum number of directories explored at the same time
+	 */
+	public DirExplorer(Filter filter, FileHandler fileHandler, List<String> skipGlobs, int parallelism) {
+		this.filter = filter;
+		this.fileHandler = fileHandler;
+		this.skipMatchers = new ArrayList<>();
+		for (String glob : skipGlobs) {
+			// "build/" reads as a directory, but the matched paths have no trailing slash
+			while (glob.endsWith("/"))
+				glob = glob.substring(0, glob.length() - 1);
+			skipMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @param directoryHandler
+	 *            called for the root and every directory that is entered, before
+	 *            its files are handled
+	 * @param skipGlobs
+	 *            globs of the directories that are not entered
+	 * @param parallelism
+	 *            the maximum number of directories explored at the same time
+	 */
+	public DirExplorer(Filter filter, FileHandler fileHandler, DirectoryHandler directoryHandler,
+			List<String> skipGlobs, int parallelism) {
+		this(filter, fileHandler, skipGlobs, parallelism);
+		this.directoryHandler = directoryHandler;
+	}
+
+	public void explore(File root) {
+		if (!root.isDirectory()) {
+			if (filter.interested(0, "", root))
+				fileHandler.handle(0, "", root);
+			return;
+		}
+
+		Set<Object> visited = ConcurrentHashMap.newKeySet();
+		visited.add(getDirectoryKey(root.toPath()));
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new ExploreTask(0, "", root.toPath(), visited));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private boolean isSkipped(String path, Path directory) {
+		Path relativePath = Paths.get(path.substring(1));
+		for (PathMatcher matcher : skipMatchers) {
+			if (matcher.matches(directory.getFileName()) || matcher.matches(relativePath))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Identifies a directory independently of the (symbolic link) path it was
+	 * reached through
+	 */
+	private static Object getDirectoryKey(Path directory) {
+		try {
+			Object key = Files.readAttributes(directory, BasicFileAttributes.class).fileKey();
+			return key != null ? key : directory.toRealPath();
+		} catch (IOException e) {
+			return directory.toAbsolutePath().normalize();
+		}
+	}
+
+	/**
+	 * Handles the files of one directory and forks a task for each of its sub
+	 * directories
+	 */
+	private class ExploreTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int level;
+		private final String path;
+		private final Path directory;
+		private final Set<Object> visited;
+
+		private ExploreTask(int level, String path, Path directory, Set<Object> visited) {
+			this.level = level;
+			this.path = path;
+			this.directory = directory;
+			this.visited = visited;
+		}
+
+		@Override
+		protected void compute() {
+			if (directoryHandler != null)
+				directoryHandler.handle(level, path, directory.toFile());
+			List<ExploreTask> subDirectories = new ArrayList<>();
+			try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+				for (Path child : children) {
+					String childPath = path + "/" + child.getFileName();
+					if (Files.isDirectory(child)) {
+						if (!isSkipped(childPath, child) && visited.add(getDirectoryKey(child)))
+							subDirectories.add(new ExploreTask(level + 1, childPath, child, visited));
+					} else {
+						File file = child.toFile();
+						if (filter.interested(level + 1, childPath, file))
+							fileHandler.handle(level + 1, childPath, file);
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("Could not list " + directory + ": " + e.getMessage());
+			}
+			invokeAll(subDirectories);
+		}
+	}
+
+}
@@ -3,36 +3,103 @@ package extractTestFiles;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.opencsv.CSVWriter;
 
+import testsmell.SourceLoader;
+import testsmell.jfr.FileParsedEvent;
+
 public class FindClasses {
 
-	public static Set<String> extractProductionFiles(File projectDir, String projectPath) {
-		Set<String> productionFiles = new HashSet<>();
+	/**
+	 * Directories that never hold sources. Other directories (e.g. build, target)
+	 * can be skipped with -Dtestsmell.skipDirs, a comma separated list of globs
+	 * that replaces this default.
+	 */
+	public static final List<String> DEFAULT_SKIP_GLOBS = Collections
+			.unmodifiableList(Arrays.asList(".git", ".svn", ".hg"));
+
+	public static List<String> getSkipGlobs() {
+		String skipDirs = System.getProperty("testsmell.skipDirs");
+		if (skipDirs == null)
+			return DEFAULT_SKIP_GLOBS;
+		List<String> skipGlobs = new ArrayList<>();
+		for (String glob : skipDirs.split(",")) {
+			if (!glob.trim().isEmpty())
+				skipGlobs.add(glob.trim());
+		}
+		return skipGlobs;
+	}
+
+	/**
+	 * Walks the project once and classifies every java file as a test file, a
+	 * production file, or both. Files are classified from their header (package
+	 * and imports) where possible; a file is fully parsed only if its header is
+	 * not conclusive, and then only once. Directories are walked in parallel,
+	 * using -Dtestsmell.threads threads.
+	 */
+	public static ProjectFiles extractProjectFiles(File projectDir, String projectPath) {
+		return extractProjectFiles(projectDir, projectPath, null);
+	}
+
+	/**
+	 * Classifies the java files of the project as
+	 * {@link #extractProjectFiles(File, String)} does, and passes every directory
+	 * of the project that is walked to the given handler
+	 *
+	 * @param directoryHandler
+	 *            the handler, or null
+	 */
+	public static ProjectFiles extractProjectFiles(File projectDir, String projectPath,
+			DirExplorer.DirectoryHandler directoryHandler) {
+		ProjectFiles projectFiles = new ProjectFiles();
 		new DirExplorer((level, path, file) -> path.endsWith(".java"), (level, path, file) -> {
+			boolean mayBeTest = !path.contains("/clover/");
+			boolean mayBeProduction = path.contains("/main/");
+			if (!mayBeTest && !mayBeProduction)
+				return;
+
+			JavaFileHeader header;
+			CompilationUnit compilationUnit = null;
 			try {
-				new VoidVisitorAdapter<Object>() {
-					@Override
-					public void visit(ClassOrInterfaceDeclaration n, Object arg) {
-						super.visit(n, arg);
-						if (path.contains("/main/"))
-							productionFiles.add(projectPath + path);
-					}
-				}.visit(JavaParser.parse(file), null);
+				header = JavaFileHeader.read(file);
+				// an enum or annotation type may still declare a nested class
+				if (header == null || (mayBeProduction && isEnumOrAnnotation(header))) {
+					FileParsedEvent event = new FileParsedEvent();
+					event.begin();
+					compilationUnit = SourceLoader.parse(SourceLoader.read(file.toPath()));
+					event.record(file.getPath(), "classify", file.length(), compilationUnit);
+				}
 			} catch (IOException e) {
-				new RuntimeException(e);
+				e.printStackTrace();
+				return;
 			}
-		}).explore(projectDir);
-		return productionFiles;
+
+			if (mayBeTest && (header != null ? hasTestingImport(header) : hasTestingImport(compilationUnit)))
+				projectFiles.addTestFile(projectPath + path);
+			if (mayBeProduction && (compilationUnit != null ? hasClass(compilationUnit) : hasClass(header)))
+				projectFiles.addProductionFile(projectPath + path);
+		}, directoryHandler, getSkipGlobs(),
+				Integer.getInteger("testsmell.threads", Runtime.getRuntime().availableProcessors())).explore(projectDir);
+		return projectFiles;
+	}
+
+	public static Set<String> extractProductionFiles(File projectDir, String projectPath) {
+		return extractProjectFiles(projectDir, projectPath).getProductionFiles();
 	}
 
 	public static boolean isTestingImport(String imp) {
@@ -40,47 +107,155 @@ public class FindClasses {
 	}
 
 	public static Set<String> extractTesFiles(File projectDir, String projectPath) {
-		Set<String> testFiles = new HashSet<>();
-		new DirExplorer((level, path, file) -> path.endsWith(".java"), (level, path, file) -> {
-			try {
-				new VoidVisitorAdapter<Object>() {
-					@Override
-					public void visit(ImportDeclaration n, Object arg) {
-						super.visit(n, arg);
-						if (isTestingImport(n.getName().toString()) && !path.contains("/clover/"))
-							testFiles.add(projectPath + path);
-					}
-
-				}.visit(JavaParser.parse(file), null);
-			} catch (IOException e) {
-				new RuntimeException(e);
-			}
-		}).explore(projectDir);
-		return testFiles;
+		return extractProjectFiles(projectDir, projectPath).getTestFiles();
+	}
+
+	private static boolean hasTestingImport(CompilationUnit compilationUnit) {
+		for (ImportDeclaration importDeclaration : compilationUnit.getImports()) {
+			if (isTestingImport(importDeclaration.getName().toString()))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean hasTestingImport(JavaFileHeader header) {
+		for (String importName : header.getImports()) {
+			if (isTestingImport(importName))
+				return true;
+		}
+		return false;
 	}
 
+	private static boolean isEnumOrAnnotation(JavaFileHeader header) {
+		return "enum".equals(header.getTypeKeyword()) || "@interface".equals(header.getTypeKeyword());
+	}
+
+	/**
+	 * Checks if the first type declared in the file is a class or interface
+	 */
+	private static boolean hasClass(JavaFileHeader header) {
+		return "class".equals(header.getTypeKeyword()) || "interface".equals(header.getTypeKeyword());
+	}
+
+	/**
+	 * Checks if the file declares a class or interface, at any nesting level
+	 */
+	private static boolean hasClass(CompilationUnit compilationUnit) {
+		for (TypeDeclaration<?> type : compilationUnit.getTypes()) {
+			if (type instanceof ClassOrInterfaceDeclaration)
+				return true;
+		}
+		return !compilationUnit.getChildNodesByType(ClassOrInterfaceDeclaration.class).isEmpty();
+	}
+
+	/**
+	 * Pairs every test file with the production file it tests, i.e. the class
+	 * named like the test class without the leading or trailing "Test". The
+	 * production files are indexed by class name, so each test file is matched
+	 * with a lookup. If several production classes share the name, the one whose
+	 * package (directory) is closest to that of the test file is taken.
+	 *
+	 * @return the production file of each test file, or an empty string if there
+	 *         is none
+	 */
 	public static Map<String, String> findMatches(Set<String> testFiles, Set<String> productionFiles) {
+		Map<String, List<String>> productionsByName = new HashMap<>();
+		for (String production : productionFiles) {
+			productionsByName.computeIfAbsent(getClassName(production), name -> new ArrayList<>()).add(production);
+		}
+
 		Map<String, String> testToProduction = new HashMap<>();
 		for (String test : testFiles) {
-			for (String production : productionFiles) {
-				String testName = test.split("/")[test.split("/").length - 1];
-				String testNameClean = testName.split(".java")[testName.split(".java").length - 1];
-				String productionName = production.split("/")[production.split("/").length - 1];
-				String productionNameClean = productionName.split(".java")[productionName.split(".java").length - 1];
-				if ((testNameClean.equals("Test" + productionNameClean))
-						|| (testNameClean.equals(productionNameClean + "Test"))) {
-					testToProduction.put(test, production);
-				}
-			}
-			if (!testToProduction.containsKey(test))
-				testToProduction.put(test, "");
+			String testName = getClassName(test);
+			List<String> candidates = new ArrayList<>();
+			if (testName.startsWith("Test"))
+				candidates.addAll(productionsByName.getOrDefault(testName.substring("Test".length()),
+						Collections.emptyList()));
+			if (testName.endsWith("Test"))
+				candidates.addAll(productionsByName.getOrDefault(
+						testName.substring(0, testName.length() - "Test".length()), Collections.emptyList()));
+			testToProduction.put(test, findClosest(test, candidates));
 		}
 		return testToProduction;
 	}
 
+	/**
+	 * Selects the pairs affected by the changed files, i.e. those whose test file
+	 * or production file changed
+	 *
+	 * @param testToProduction
+	 *            the pairs, as returned by {@link #findMatches(Set, Set)}
+	 * @param changedFiles
+	 *            the changed files, as normalized paths (see
+	 *            {@link java.nio.file.Path#normalize()})
+	 * @return the affected pairs, in the order of the given pairs
+	 */
+	public static Map<String, String> findAffectedMatches(Map<String, String> testToProduction,
+			Set<String> changedFiles) {
+		Map<String, String> affected = new LinkedHashMap<>();
+		for (Map.Entry<String, String> pair : testToProduction.entrySet()) {
+			if (changedFiles.contains(Paths.get(pair.getKey()).normalize().toString())
+					|| (!pair.getValue().isEmpty()
+							&& changedFiles.contains(Paths.get(pair.getValue()).normalize().toString())))
+				affected.put(pair.getKey(), pair.getValue());
+		}
+		return affected;
+	}
+
+	/**
+	 * Returns the class name of a java file, i.e. its file name without the
+	 * extension
+	 */
+	private static String getClassName(String path) {
+		String fileName = path.substring(path.lastIndexOf('/') + 1);
+		if (fileName.endsWith(".java"))
+			return fileName.substring(0, fileName.length() - ".java".length());
+		return fileName;
+	}
+
+	/**
+	 * Returns the candidate whose directory shares the most trailing path segments
+	 * (i.e. package) with the directory of the test file, or an empty string if
+	 * there are no candidates
+	 */
+	private static String findClosest(String test, List<String> candidates) {
+		if (candidates.isEmpty())
+			return "";
+		if (candidates.size() == 1)
+			return candidates.get(0);
+
+		String[] testDirs = test.split("/");
+		String closest = "";
+		int closestShared = -1;
+		for (String candidate : candidates) {
+			String[] candidateDirs = candidate.split("/");
+			int shared = 0;
+			// compare the directories from the innermost outwards, skipping the file names
+			while (shared < testDirs.length - 1 && shared < candidateDirs.length - 1
+					&& testDirs[testDirs.length - 2 - shared].equals(candidateDirs[candidateDirs.length - 2 - shared]))
+				shared++;
+			if (shared >= closestShared) {
+				closest = candidate;
+				closestShared = shared;
+			}
+		}
+		return closest;
+	}
+
 	public static void translateToCSV(Map<String, String> testToProduction, String projectPath) throws IOException {
 		String projectName = projectPath.split("/")[projectPath.split("/").length - 1];
-		CSVWriter csvWriter = new CSVWriter(new FileWriter("inputPaths/" + projectName + ".csv"),
+		translateToCSV(testToProduction, projectPath, projectName);
+	}
+
+	/**
+	 * Writes the pairs of the project to inputPaths/&lt;outputName&gt;.csv
+	 *
+	 * @throws IOException
+	 */
+	public static void translateToCSV(Map<String, String> testToProduction, String projectPath, String outputName)
+			throws IOException {
+		String projectName = projectPath.split("/")[projectPath.split("/").length - 1];
+		CSVWriter csvWriter = new CSVWriter(new FileWriter("inputPaths/" + outputName + ".csv"),
 				CSVWriter.DEFAULT_SEPARATOR, CSVWriter.NO_QUOTE_CHARACTER);
 		for (String test : testToProduction.keySet())
 			csvWriter.writeNext(new String[] { projectName, test, testToProduction.get(test) });
@@ -92,10 +267,10 @@ public class FindClasses {
 	public static void extractTestClassesToCSVs(String[] projects) {
 		for (String projectPath : projects) {
 			File projectDir = new File(projectPath);
-			Set<String> tests = extractTesFiles(projectDir, projectPath);
-			Set<String> productions = extractProductionFiles(projectDir, projectPath);
+			ProjectFiles projectFiles = extractProjectFiles(projectDir, projectPath);
 			try {
-				translateToCSV(findMatches(tests, productions), projectPath);
+				translateToCSV(findMatches(projectFiles.getTestFiles(), projectFiles.getProductionFiles()),
+						projectPath);
 			} catch (IOException e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
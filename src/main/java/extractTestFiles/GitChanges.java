@@ -0,0 +1,121 @@
+package extractTestFiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Lists the files changed between two revisions of a local git repository,
+ * using the git command line. No remote is contacted.
+ */
+public class GitChanges {
+
+	/**
+	 * Returns the files of the project that differ between the two revisions,
+	 * including added and deleted files, as the project path resolved against the
+	 * path relative to the project and normalized
+	 *
+	 * @param projectPath
+	 *            the project directory, anywhere inside a git working tree
+	 * @param fromRevision
+	 *            the base revision, e.g. a branch, tag or commit
+	 * @param toRevision
+	 *            the changed revision, or null to compare with the working tree
+	 *            (including staged changes, but not untracked files)
+	 * @throws IOException
+	 *             if git fails, e.g. because a revision does not exist
+	 */
+	public static Set<String> getChangedFiles(String projectPath, String fromRevision, String toRevision)
+			throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.add("-C");
+		command.add(projectPath);
+		// -z: names are NUL terminated and never quoted; --relative: only files in the
+		// project, relative to it
+		command.add("diff");
+		command.add("--name-only");
+		command.add("-z");
+		command.add("--relative");
+		command.add(checkRevision(fromRevision));
+		if (toRevision != null)
+			command.add(checkRevision(toRevision));
+		command.add("--");
+
+		Path projectDir = Paths.get(projectPath);
+		Set<String> changedFiles = new TreeSet<>();
+		for (String name : run(command).split("\0")) {
+			if (!name.isEmpty())
+				changedFiles.add(projectDir.resolve(name).normalize().toString());
+		}
+		return changedFiles;
+	}
+
+	/**
+	 * Checks that the working tree of the project is the revision, i.e. that the
+	 * revision is checked out and the project has no changes, untracked files
+	 * included, as the files are read from the working tree
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the working tree is not the revision
+	 * @throws IOException
+	 *             if git fails, e.g. because the revision does not exist
+	 */
+	public static void checkWorkingTree(String projectPath, String revision) throws IOException {
+		String head = run(git(projectPath, "rev-parse", "--verify", "HEAD^{commit}")).trim();
+		String commit = run(git(projectPath, "rev-parse", "--verify", checkRevision(revision) + "^{commit}")).trim();
+		if (!commit.equals(head))
+			throw new IllegalArgumentException(revision + " is not checked out in " + projectPath);
+		if (!run(git(projectPath, "status", "--porcelain", "-z", "--", ".")).isEmpty())
+			throw new IllegalArgumentException(projectPath + " has changes that are not in " + revision);
+	}
+
+	private static List<String> git(String projectPath, String... args) {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.add("-C");
+		command.add(projectPath);
+		command.addAll(Arrays.asList(args));
+		return command;
+	}
+
+	/**
+	 * Rejects revisions git would take for options
+	 */
+	private static String checkRevision(String revision) {
+		if (revision.isEmpty() || revision.startsWith("-"))
+			throw new IllegalArgumentException("Not a revision: " + revision);
+		return revision;
+	}
+
+	private static String run(List<String> command) throws IOException {
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		process.getOutputStream().close();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (InputStream in = process.getInputStream()) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				output.write(buffer, 0, read);
+		}
+		try {
+			int exitCode = process.waitFor();
+			if (exitCode != 0)
+				throw new IOException(String.join(" ", command) + " exited with " + exitCode);
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for git");
+		}
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,235 @@
+package extractTestFiles;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The preamble of a java file, i.e. its imports and the kind of its first type
+ * declaration. It is read lexically, token by token, and reading stops at the
+ * first type declaration, so the body of the file is never read nor parsed.
+ */
+public class JavaFileHeader {
+
+	private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList("public", "protected", "private",
+			"abstract", "static", "final", "strictfp"));
+
+	private List<String> imports;
+	private String typeKeyword;
+
+	private JavaFileHeader(List<String> imports, String typeKeyword) {
+		this.imports = imports;
+		this.typeKeyword = typeKeyword;
+	}
+
+	/**
+	 * Returns the names of the imported types/packages, without 'static' and
+	 * without a trailing '.*'
+	 */
+	public List<String> getImports() {
+		return imports;
+	}
+
+	/**
+	 * Returns the keyword of the first type declared in the file ("class",
+	 * "interface", "enum" or "@interface"), or null if the file declares no type
+	 */
+	public String getTypeKeyword() {
+		return typeKeyword;
+	}
+
+	/**
+	 * Reads the preamble of the given file
+	 *
+	 * @return the header, or null if the preamble is not plain enough to be read
+	 *         without a parser
+	 * @throws IOException
+	 */
+	public static JavaFileHeader read(File file) throws IOException {
+		try (Reader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			return new Scanner(reader).scan();
+		}
+	}
+
+	/**
+	 * Splits the preamble into identifiers and single character symbols, skipping
+	 * whitespace, comments and literals
+	 */
+	private static class Scanner {
+		private final Reader reader;
+		private int next = -2;
+		private String pushedBack;
+		private boolean unterminatedComment;
+
+		private Scanner(Reader reader) {
+			this.reader = reader;
+		}
+
+		private JavaFileHeader scan() throws IOException {
+			List<String> imports = new ArrayList<>();
+			String token;
+			while ((token = nextToken()) != null) {
+				if (token.equals(";") || MODIFIERS.contains(token)) {
+					continue;
+				} else if (token.equals("package")) {
+					if (readUntilSemicolon() == null)
+						return null;
+				} else if (token.equals("import")) {
+					String first = nextToken();
+					if (first == null)
+						return null;
+					if (!first.equals("static"))
+						pushedBack = first;
+					String name = readUntilSemicolon();
+					if (name == null)
+						return null;
+					if (name.endsWith(".*"))
+						name = name.substring(0, name.length() - ".*".length());
+					imports.add(name);
+				} else if (token.equals("@")) {
+					String name = nextToken();
+					if ("interface".equals(name))
+						return new JavaFileHeader(imports, "@interface");
+					if (!skipAnnotation(name))
+						return null;
+				} else if (token.equals("class") || token.equals("interface") || token.equals("enum")) {
+					return new JavaFileHeader(imports, token);
+				} else {
+					// anything else cannot be told apart without a parser
+					return null;
+				}
+			}
+			// a comment that runs to the end of the file is left to the parser to report
+			if (unterminatedComment)
+				return null;
+			return new JavaFileHeader(imports, null);
+		}
+
+		/**
+		 * Concatenates the tokens up to the next semicolon, or returns null if the
+		 * file ends first
+		 */
+		private String readUntilSemicolon() throws IOException {
+			StringBuilder builder = new StringBuilder();
+			String token;
+			while ((token = nextToken()) != null) {
+				if (token.equals(";"))
+					return builder.toString();
+				builder.append(token);
+			}
+			return null;
+		}
+
+		/**
+		 * Skips the (qualified) name of an annotation and its arguments, if any
+		 */
+		private boolean skipAnnotation(String name) throws IOException {
+			if (name == null || !Character.isJavaIdentifierStart(name.charAt(0)))
+				return false;
+			String token = nextToken();
+			while (".".equals(token)) {
+				if (nextToken() == null)
+					return false;
+				token = nextToken();
+			}
+			if (!"(".equals(token)) {
+				pushedBack = token;
+				return true;
+			}
+			int depth = 1;
+			while (depth > 0) {
+				token = nextToken();
+				if (token == null)
+					return false;
+				if (token.equals("("))
+					depth++;
+				else if (token.equals(")"))
+					depth--;
+			}
+			return true;
+		}
+
+		private String nextToken() throws IOException {
+			if (pushedBack != null) {
+				String token = pushedBack;
+				pushedBack = null;
+				return token;
+			}
+
+			int c = read();
+			while (true) {
+				if (c == -1) {
+					return null;
+				} else if (Character.isWhitespace(c)) {
+					c = read();
+				} else if (c == '/' && peek() == '/') {
+					while (c != -1 && c != '\n')
+						c = read();
+				} else if (c == '/' && peek() == '*') {
+					read();
+					int previous = 0;
+					c = read();
+					while (c != -1 && !(previous == '*' && c == '/')) {
+						previous = c;
+						c = read();
+					}
+					if (c == -1) {
+						unterminatedComment = true;
+						return null;
+					}
+					c = read();
+				} else {
+					break;
+				}
+			}
+
+			if (c == '"' || c == '\'') {
+				skipLiteral(c);
+				return "literal";
+			}
+			if (c == '\\') {
+				// unicode escapes are left to the parser
+				return "\\";
+			}
+			if (Character.isJavaIdentifierStart(c)) {
+				StringBuilder builder = new StringBuilder();
+				builder.append((char) c);
+				while (peek() != -1 && Character.isJavaIdentifierPart(peek()))
+					builder.append((char) read());
+				return builder.toString();
+			}
+			return String.valueOf((char) c);
+		}
+
+		private void skipLiteral(int quote) throws IOException {
+			int c = read();
+			while (c != -1 && c != quote) {
+				if (c == '\\')
+					read();
+				c = read();
+			}
+		}
+
+		private int peek() throws IOException {
+			if (next == -2)
+				next = reader.read();
+			return next;
+		}
+
+		private int read() throws IOException {
+			int c = peek();
+			next = -2;
+			return c;
+		}
+	}
+}
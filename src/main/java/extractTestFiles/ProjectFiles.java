@@ -0,0 +1,39 @@
+package extractTestFiles;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The test files and production files found in a project. A file can be both,
+ * e.g. a test helper that lives in the main source tree.
+ * <p>
+ * Files can be added concurrently. The sets are sorted, so they iterate in the
+ * same order however the files were found.
+ */
+public class ProjectFiles {
+
+	private Set<String> testFiles;
+	private Set<String> productionFiles;
+
+	public ProjectFiles() {
+		testFiles = Collections.synchronizedSet(new TreeSet<>());
+		productionFiles = Collections.synchronizedSet(new TreeSet<>());
+	}
+
+	public void addTestFile(String path) {
+		testFiles.add(path);
+	}
+
+	public void addProductionFile(String path) {
+		productionFiles.add(path);
+	}
+
+	public Set<String> getTestFiles() {
+		return testFiles;
+	}
+
+	public Set<String> getProductionFiles() {
+		return productionFiles;
+	}
+}
@@ -1,18 +1,46 @@
 package testsmell;
 
 import java.io.FileNotFoundException;
-import java.util.List;
+import java.util.Collections;
 
 import com.github.javaparser.ast.CompilationUnit;
 
+/**
+ * A test smell. Smells keep no state of their own: everything about the file
+ * being analyzed lives in the visitor created for it, so a single instance of
+ * each smell serves all files, also concurrently.
+ */
 public abstract class AbstractSmell {
 	public abstract String getSmellName();
 
-	public abstract boolean getHasSmell();
-
-	public abstract void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
+	/**
+	 * Creates the visitor that analyzes the test file for this smell. The visitor
+	 * is fed by a {@link FusedVisitor} walk over the test file that is shared with
+	 * the other smells; {@link #createResult(SmellVisitor)} then turns it into the
+	 * result.
+	 *
+	 * @throws FileNotFoundException
+	 *             if the smell needs a production file and there is none
+	 */
+	public abstract SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit)
 			throws FileNotFoundException;
 
-	public abstract List<TestMethod> getSmellyElements();
+	/**
+	 * Collects the result of a visitor created by this smell, once its walk is
+	 * over
+	 */
+	public SmellResult createResult(SmellVisitor visitor) {
+		return new SmellResult(getSmellName(), visitor.getSmellyElements());
+	}
+
+	/**
+	 * Analyzes the test file for this smell only, walking the test file on its own
+	 */
+	public SmellResult runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
+			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
+			throws FileNotFoundException {
+		SmellVisitor visitor = createVisitor(testFile, productionFileCompilationUnit);
+		new FusedVisitor(Collections.singletonList(visitor)).visit(testFileCompilationUnit, null);
+		return createResult(visitor);
+	}
 }
@@ -0,0 +1,401 @@
+package testsmell;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of an output file in a compact binary, columnar layout, as written
+ * by {@link ResultsWriter#createColumnarResultsWriter(File)}. Every value
+ * written as CSV is kept, so exporting the file gives back the same CSV.
+ * <p>
+ * A column whose values are all "true", "false" or "False" (a smell that was
+ * not analyzed or found nothing in the file) is stored as two bitsets over the
+ * rows: the rows that are true, and the rows that are "False". Any other column
+ * (e.g. the test methods) is split at the last '.' of each value, and both
+ * parts (e.g. the test class and the method) are stored as ids into a
+ * dictionary of the distinct strings of the file.
+ * <p>
+ * Layout, big-endian, where a varint is an unsigned LEB128 integer and a
+ * string is the varint length of its UTF-8 bytes followed by them:
+ *
+ * <pre>
+ * int magic "TSMC", int version
+ * varint columns, varint rows, string column names...
+ * varint dictionary size, string entries...
+ * per column: byte BOOLEAN, long words of the true rows, long words of the "False" rows
+ *          or byte STRING, varint prefix id and varint suffix id of every row
+ * </pre>
+ *
+ * Usage, to export a file as CSV:
+ * <code>java testsmell.ColumnarResults outputSmells/project.smells [output.csv]</code>
+ */
+public class ColumnarResults {
+
+	public static final String FILE_EXTENSION = ".smells";
+
+	private static final int MAGIC = 0x54534D43;
+	private static final int VERSION = 1;
+	private static final byte BOOLEAN = 0;
+	private static final byte STRING = 1;
+
+	private List<String> columnNames;
+	private int rowCount;
+	private String[] dictionary;
+	private BitSet[] trueRows;
+	private BitSet[] unanalyzedRows;
+	private int[][] prefixIds;
+	private int[][] suffixIds;
+
+	private ColumnarResults() {
+	}
+
+	/**
+	 * Reads a columnar results file
+	 *
+	 * @throws IOException
+	 *             if the file cannot be read or is not a columnar results file
+	 */
+	public static ColumnarResults read(File file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		try {
+			if (buffer.getInt() != MAGIC)
+				throw new IOException(file + " is not a columnar results file");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException(file + " has the unsupported version " + version);
+
+			ColumnarResults results = new ColumnarResults();
+			// a column takes at least its name length and its type
+			int columnCount = readCount(buffer, 2);
+			results.rowCount = readVarInt(buffer);
+			List<String> columnNames = new ArrayList<>();
+			for (int column = 0; column < columnCount; column++)
+				columnNames.add(readString(buffer));
+			results.columnNames = Collections.unmodifiableList(columnNames);
+			results.dictionary = new String[readCount(buffer, 1)];
+			for (int id = 0; id < results.dictionary.length; id++)
+				results.dictionary[id] = readString(buffer);
+
+			results.trueRows = new BitSet[columnCount];
+			results.unanalyzedRows = new BitSet[columnCount];
+			results.prefixIds = new int[columnCount][];
+			results.suffixIds = new int[columnCount][];
+			int words = (results.rowCount + 63) / 64;
+			for (int column = 0; column < columnCount; column++) {
+				byte type = buffer.get();
+				if (type == BOOLEAN) {
+					results.trueRows[column] = readBitSet(buffer, words);
+					results.unanalyzedRows[column] = readBitSet(buffer, words);
+				} else if (type == STRING) {
+					// every row takes at least a byte for each of its two ids
+					checkRemaining(buffer, 2L * results.rowCount);
+					results.prefixIds[column] = new int[results.rowCount];
+					results.suffixIds[column] = new int[results.rowCount];
+					for (int row = 0; row < results.rowCount; row++) {
+						results.prefixIds[column][row] = readId(buffer, results.dictionary.length);
+						results.suffixIds[column][row] = readId(buffer, results.dictionary.length);
+					}
+				} else {
+					throw new IOException(file + " has a column of the unknown type " + type);
+				}
+			}
+			return results;
+		} catch (BufferUnderflowException e) {
+			throw new IOException(file + " is truncated", e);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: ColumnarResults input" + FILE_EXTENSION + " [output.csv]");
+			System.exit(2);
+		}
+		File input = new File(args[0]);
+		String outputName = args[0].endsWith(FILE_EXTENSION)
+				? args[0].substring(0, args[0].length() - FILE_EXTENSION.length())
+				: args[0];
+		File output = new File(args.length > 1 ? args[1] : outputName + ".csv");
+		ColumnarResults results = read(input);
+		try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(output,
+				ResultsWriter.DEFAULT_BUFFER_SIZE, ResultsWriter.DEFAULT_FLUSH_INTERVAL_MILLIS)) {
+			results.export(resultsWriter);
+		}
+		System.out.println("Exported " + results.getRowCount() + " rows of " + input + " into " + output);
+	}
+
+	/**
+	 * Writes the column names and all rows into the writer, e.g. a CSV file
+	 *
+	 * @throws IOException
+	 */
+	public void export(ResultsWriter resultsWriter) throws IOException {
+		resultsWriter.writeColumnName(columnNames);
+		for (int row = 0; row < rowCount; row++) {
+			List<String> values = new ArrayList<>(columnNames.size());
+			for (int column = 0; column < columnNames.size(); column++)
+				values.add(getValue(row, column));
+			resultsWriter.writeLine(values);
+		}
+	}
+
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Checks if the column only holds "true", "false" and "False", i.e. is a smell
+	 */
+	public boolean isBooleanColumn(int column) {
+		return trueRows[column] != null;
+	}
+
+	/**
+	 * Returns the value of the row in the column as it is written as CSV
+	 */
+	public String getValue(int row, int column) {
+		if (row < 0 || row >= rowCount)
+			throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+		if (isBooleanColumn(column)) {
+			if (trueRows[column].get(row))
+				return "true";
+			return unanalyzedRows[column].get(row) ? "False" : "false";
+		}
+		return dictionary[prefixIds[column][row]] + dictionary[suffixIds[column][row]];
+	}
+
+	/**
+	 * Checks if the row has the smell of the boolean column
+	 */
+	public boolean hasSmell(int row, int column) {
+		if (!isBooleanColumn(column))
+			throw new IllegalArgumentException(columnNames.get(column) + " is not a smell column");
+		return trueRows[column].get(row);
+	}
+
+	/**
+	 * Returns the rows that have the smell of the boolean column; the bitset is a
+	 * copy
+	 */
+	public BitSet getSmellyRows(int column) {
+		if (!isBooleanColumn(column))
+			throw new IllegalArgumentException(columnNames.get(column) + " is not a smell column");
+		return (BitSet) trueRows[column].clone();
+	}
+
+	private static BitSet readBitSet(ByteBuffer buffer, int words) {
+		checkRemaining(buffer, (long) words * Long.BYTES);
+		long[] bits = new long[words];
+		for (int i = 0; i < words; i++)
+			bits[i] = buffer.getLong();
+		return BitSet.valueOf(bits);
+	}
+
+	private static int readId(ByteBuffer buffer, int dictionarySize) throws IOException {
+		int id = readVarInt(buffer);
+		if (id >= dictionarySize)
+			throw new IOException("Dictionary id " + id + " out of " + dictionarySize);
+		return id;
+	}
+
+	private static int readVarInt(ByteBuffer buffer) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			// only the low 4 bits of a fifth byte fit into an int
+			if (shift == 28 && (b & 0xF0) != 0)
+				throw new IOException("Malformed varint");
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				if (value < 0)
+					throw new IOException("Malformed varint");
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/**
+	 * Reads a count of items that take at least the given number of bytes each,
+	 * rejecting a count the rest of the file cannot hold before anything is
+	 * allocated for it
+	 */
+	private static int readCount(ByteBuffer buffer, int minBytes) throws IOException {
+		int count = readVarInt(buffer);
+		checkRemaining(buffer, (long) count * minBytes);
+		return count;
+	}
+
+	/**
+	 * Fails like a read past the end of the buffer if fewer bytes remain, so a
+	 * corrupt length is reported as a truncated file
+	 */
+	private static void checkRemaining(ByteBuffer buffer, long bytes) {
+		if (bytes > buffer.remaining())
+			throw new BufferUnderflowException();
+	}
+
+	private static String readString(ByteBuffer buffer) throws IOException {
+		byte[] bytes = new byte[readCount(buffer, 1)];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Collects the rows of a file and writes them in the columnar layout once all
+	 * are known
+	 */
+	static final class Builder {
+		private List<String> columnNames;
+		private int rowCount;
+		private final Map<String, Integer> dictionaryIds = new HashMap<>();
+		private final List<String> dictionary = new ArrayList<>();
+		private final List<Column> columns = new ArrayList<>();
+
+		void setColumnNames(List<String> columnNames) {
+			if (this.columnNames != null)
+				throw new IllegalStateException("The column names are already written");
+			this.columnNames = new ArrayList<>(columnNames);
+			for (int i = 0; i < columnNames.size(); i++)
+				columns.add(new Column());
+		}
+
+		void addRow(List<String> values) {
+			if (columnNames == null)
+				throw new IllegalStateException("The column names must be written before the rows");
+			if (values.size() != columnNames.size())
+				throw new IllegalArgumentException(
+						"Expected " + columnNames.size() + " values but got " + values.size());
+			for (int i = 0; i < values.size(); i++)
+				columns.get(i).add(rowCount, String.valueOf(values.get(i)));
+			rowCount++;
+		}
+
+		void write(OutputStream output) throws IOException {
+			if (columnNames == null)
+				setColumnNames(new ArrayList<>());
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeVarInt(out, columnNames.size());
+			writeVarInt(out, rowCount);
+			for (String columnName : columnNames)
+				writeString(out, columnName);
+			writeVarInt(out, dictionary.size());
+			for (String entry : dictionary)
+				writeString(out, entry);
+
+			int words = (rowCount + 63) / 64;
+			for (Column column : columns) {
+				if (column.prefixIds == null) {
+					out.writeByte(BOOLEAN);
+					writeBitSet(out, column.trueRows, words);
+					writeBitSet(out, column.unanalyzedRows, words);
+				} else {
+					out.writeByte(STRING);
+					for (int row = 0; row < rowCount; row++) {
+						writeVarInt(out, column.prefixIds[row]);
+						writeVarInt(out, column.suffixIds[row]);
+					}
+				}
+			}
+			out.flush();
+		}
+
+		private int getId(String entry) {
+			Integer id = dictionaryIds.get(entry);
+			if (id == null) {
+				id = dictionary.size();
+				dictionaryIds.put(entry, id);
+				dictionary.add(entry);
+			}
+			return id;
+		}
+
+		private static void writeBitSet(DataOutputStream out, BitSet bits, int words) throws IOException {
+			long[] packed = Arrays.copyOf(bits.toLongArray(), words);
+			for (long word : packed)
+				out.writeLong(word);
+		}
+
+		private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+
+		private static void writeString(DataOutputStream out, String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(out, bytes.length);
+			out.write(bytes);
+		}
+
+		/**
+		 * A column, kept as bitsets while all its values are boolean, and as
+		 * dictionary ids from its first other value on
+		 */
+		private final class Column {
+			private BitSet trueRows = new BitSet();
+			private BitSet unanalyzedRows = new BitSet();
+			private int[] prefixIds;
+			private int[] suffixIds;
+
+			private void add(int row, String value) {
+				if (prefixIds == null) {
+					if (value.equals("true")) {
+						trueRows.set(row);
+						return;
+					}
+					if (value.equals("false"))
+						return;
+					if (value.equals("False")) {
+						unanalyzedRows.set(row);
+						return;
+					}
+					toStrings(row);
+				}
+				if (row == prefixIds.length) {
+					prefixIds = Arrays.copyOf(prefixIds, Math.max(16, 2 * row));
+					suffixIds = Arrays.copyOf(suffixIds, prefixIds.length);
+				}
+				int split = value.lastIndexOf('.') + 1;
+				prefixIds[row] = getId(value.substring(0, split));
+				suffixIds[row] = getId(value.substring(split));
+			}
+
+			/**
+			 * Turns the boolean values of the rows before the given one into ids
+			 */
+			private void toStrings(int rows) {
+				prefixIds = new int[Math.max(16, 2 * rows)];
+				suffixIds = new int[prefixIds.length];
+				int emptyId = getId("");
+				for (int row = 0; row < rows; row++) {
+					prefixIds[row] = emptyId;
+					suffixIds[row] = getId(
+							trueRows.get(row) ? "true" : unanalyzedRows.get(row) ? "False" : "false");
+				}
+				trueRows = unanalyzedRows = null;
+			}
+		}
+	}
+}
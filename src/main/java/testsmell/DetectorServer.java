@@ -0,0 +1,237 @@
+package testsmell;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Keeps a {@link TestSmellDetector}, with its parsed production files and
+ * JIT-compiled code, alive between analyses and serves it over HTTP on the
+ * loopback interface, so a small analysis (e.g. of a pre-commit hook) does not
+ * pay for starting a JVM.
+ * <p>
+ * The server answers
+ * <ul>
+ * <li>POST /detect: the body holds test files, one per line, in the format of
+ * the inputPaths CSV files (<code>app,testFilePath[,productionFilePath]</code>).
+ * The response is the CSV Main writes for them: the column names followed by a
+ * row per test method.</li>
+ * <li>GET /health: answers "ok" once the server accepts analyses.</li>
+ * <li>POST /shutdown: stops the server.</li>
+ * </ul>
+ * Usage: <code>java testsmell.DetectorServer [port]</code>; the port defaults to
+ * {@link #DEFAULT_PORT}. Analyses use -Dtestsmell.threads threads and the
+ * -Dtestsmell.cacheDir result cache, as Main does.
+ * <p>
+ * Binding to the loopback interface does not keep out web pages, as a browser
+ * sends their requests from the same machine. Requests with an Origin header,
+ * or whose Host is not localhost, 127.0.0.1 or [::1] (e.g. a name rebound to the
+ * loopback address), are therefore rejected with 403.
+ */
+public class DetectorServer {
+
+	public static final int DEFAULT_PORT = 7878;
+
+	private TestSmellDetector testSmellDetector;
+	private int threads;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	private DetectorServer(TestSmellDetector testSmellDetector, int threads) {
+		this.testSmellDetector = testSmellDetector;
+		this.threads = threads;
+	}
+
+	/**
+	 * Factory method that provides a new instance of the DetectorServer
+	 *
+	 * @param threads
+	 *            the maximum number of files analyzed at the same time for one
+	 *            request
+	 * @return new DetectorServer instance
+	 */
+	public static DetectorServer createDetectorServer(TestSmellDetector testSmellDetector, int threads) {
+		return new DetectorServer(testSmellDetector, threads);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int threads = Integer.getInteger("testsmell.threads", Runtime.getRuntime().availableProcessors());
+		String cacheDir = System.getProperty("testsmell.cacheDir", "resultCache");
+		ResultCache resultCache = cacheDir.isEmpty() ? null : ResultCache.createResultCache(cacheDir);
+
+		DetectorServer detectorServer = createDetectorServer(
+				TestSmellDetector.createTestSmellDetector(resultCache), threads);
+		detectorServer.start(port);
+		System.out.println("Listening on http://localhost:" + detectorServer.getPort() + "/detect");
+	}
+
+	/**
+	 * Starts serving on the given port of the loopback interface
+	 *
+	 * @param port
+	 *            the port, or 0 for any free port
+	 * @throws IOException
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		// requests are served concurrently; each one analyzes its files on its own pool
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.createContext("/detect", this::handleDetect).getFilters().add(new LocalRequestFilter());
+		server.createContext("/health", exchange -> respond(exchange, 200, "ok\n")).getFilters()
+				.add(new LocalRequestFilter());
+		server.createContext("/shutdown", exchange -> {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "POST to stop the server\n");
+				return;
+			}
+			respond(exchange, 200, "stopping\n");
+			new Thread(this::stop).start();
+		}).getFilters().add(new LocalRequestFilter());
+		server.start();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops accepting requests, waits up to a second for the requests being
+	 * served, and stops the server
+	 */
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+	}
+
+	private void handleDetect(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "POST the test files to analyze\n");
+				return;
+			}
+
+			List<TestFile> testFiles;
+			try {
+				testFiles = readTestFiles(exchange);
+			} catch (IllegalArgumentException e) {
+				respond(exchange, 400, e.getMessage() + "\n");
+				return;
+			}
+
+			List<TestFile> results;
+			try {
+				results = testSmellDetector.detectSmells(testFiles, threads);
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+				respond(exchange, 500, e + "\n");
+				return;
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+			exchange.sendResponseHeaders(200, 0);
+			List<String> smellNames = testSmellDetector.getTestSmellNames();
+			List<String> columnNames = testSmellDetector.getTestSmellNames();
+			columnNames.add(0, "Test Methods");
+			try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(exchange.getRequestURI().getPath(),
+					new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+				resultsWriter.writeColumnName(columnNames);
+				for (TestFile testFile : results)
+					resultsWriter.writeTestFile(testFile, smellNames);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Reads the test files of the request, one per line in the format of the
+	 * inputPaths CSV files
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a line is not in that format
+	 */
+	private static List<TestFile> readTestFiles(HttpExchange exchange) throws IOException {
+		List<TestFile> testFiles = new ArrayList<>();
+		BufferedReader in = new BufferedReader(
+				new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+		String str;
+		while ((str = in.readLine()) != null) {
+			if (str.trim().isEmpty())
+				continue;
+			String[] lineItem = str.split(",");
+			if (lineItem.length == 2)
+				testFiles.add(new TestFile(lineItem[0], lineItem[1], ""));
+			else if (lineItem.length == 3)
+				testFiles.add(new TestFile(lineItem[0], lineItem[1], lineItem[2]));
+			else
+				throw new IllegalArgumentException("Expected app,testFilePath[,productionFilePath] but got: " + str);
+		}
+		return testFiles;
+	}
+
+	/**
+	 * Lets only requests through that come from a local client rather than from a
+	 * web page
+	 */
+	private static class LocalRequestFilter extends Filter {
+
+		@Override
+		public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+			if (exchange.getRequestHeaders().containsKey("Origin")) {
+				respond(exchange, 403, "Requests from web pages are not served\n");
+				exchange.close();
+			} else if (!isLocalHost(exchange.getRequestHeaders().getFirst("Host"))) {
+				respond(exchange, 403, "Only requests to localhost are served\n");
+				exchange.close();
+			} else {
+				chain.doFilter(exchange);
+			}
+		}
+
+		@Override
+		public String description() {
+			return "Rejects requests with an Origin header or a Host other than localhost";
+		}
+
+		/**
+		 * Checks if the Host header, without its port, names the loopback address
+		 */
+		private static boolean isLocalHost(String host) {
+			if (host == null)
+				return false;
+			host = host.trim().toLowerCase(Locale.ROOT);
+			int portStart = host.startsWith("[") ? host.indexOf(']') + 1 : host.indexOf(':');
+			if (portStart > 0 && portStart < host.length()) {
+				if (host.charAt(portStart) != ':')
+					return false;
+				host = host.substring(0, portStart);
+			}
+			return host.equals("localhost") || host.equals("127.0.0.1") || host.equals("[::1]");
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
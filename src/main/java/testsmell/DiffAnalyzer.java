@@ -0,0 +1,90 @@
+package testsmell;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import extractTestFiles.FindClasses;
+import extractTestFiles.GitChanges;
+import extractTestFiles.ProjectFiles;
+
+/**
+ * Analyzes only the test files affected by the changes between two git
+ * revisions of a project: the test files that changed and the test files whose
+ * production file changed. A test file paired with an unchanged production
+ * file is still analyzed against it.
+ * <p>
+ * Usage:
+ * <code>java testsmell.DiffAnalyzer projectDir fromRevision [toRevision]</code>;
+ * without toRevision, the working tree is compared with fromRevision. The files
+ * are always read from the working tree, so toRevision must be checked out, with
+ * no changes in the project. The affected pairs are written to
+ * inputPaths/&lt;project&gt;.diff.csv and their smells to
+ * outputSmells/&lt;project&gt;.diff.csv, next to the files Main writes for all
+ * pairs. -Dtestsmell.threads, -Dtestsmell.cacheDir and -Dtestsmell.outputFormat
+ * are used as in Main.
+ */
+public class DiffAnalyzer {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("Usage: DiffAnalyzer projectDir fromRevision [toRevision]");
+			System.exit(2);
+		}
+		String projectPath = args[0];
+		int threads = Integer.getInteger("testsmell.threads", Runtime.getRuntime().availableProcessors());
+		String cacheDir = System.getProperty("testsmell.cacheDir", "resultCache");
+		ResultCache resultCache = cacheDir.isEmpty() ? null : ResultCache.createResultCache(cacheDir);
+
+		String projectName = projectPath.split("/")[projectPath.split("/").length - 1];
+		Map<String, String> affected = findAffectedMatches(projectPath, args[1], args.length > 2 ? args[2] : null);
+		String outputName = projectName + ".diff";
+		FindClasses.translateToCSV(affected, projectPath, outputName);
+
+		TestSmellDetector testSmellDetector = TestSmellDetector.createTestSmellDetector(resultCache);
+		List<TestFile> testFiles = new ArrayList<>();
+		for (Map.Entry<String, String> pair : affected.entrySet())
+			testFiles.add(new TestFile(projectName, pair.getKey(), pair.getValue()));
+
+		try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(outputName)) {
+			List<String> smellNames = testSmellDetector.getTestSmellNames();
+			List<String> columnNames = testSmellDetector.getTestSmellNames();
+			columnNames.add(0, "Test Methods");
+			resultsWriter.writeColumnName(columnNames);
+			for (TestFile file : testSmellDetector.detectSmells(testFiles, threads))
+				resultsWriter.writeTestFile(file, smellNames);
+		}
+		System.out.println("Analyzed " + testFiles.size() + " affected test files of " + projectName);
+	}
+
+	/**
+	 * Classifies the files of the project and selects the pairs whose test file
+	 * or production file differs between the revisions
+	 *
+	 * @param toRevision
+	 *            the changed revision, which must be checked out without changes,
+	 *            or null for the working tree
+	 * @return the affected pairs, sorted by test file
+	 * @throws IllegalArgumentException
+	 *             if toRevision is not what the working tree holds
+	 * @throws IOException
+	 *             if git fails
+	 */
+	public static Map<String, String> findAffectedMatches(String projectPath, String fromRevision, String toRevision)
+			throws IOException {
+		if (toRevision != null)
+			GitChanges.checkWorkingTree(projectPath, toRevision);
+		Set<String> changedFiles = GitChanges.getChangedFiles(projectPath, fromRevision, toRevision);
+		if (changedFiles.isEmpty())
+			return new TreeMap<>();
+
+		ProjectFiles projectFiles = FindClasses.extractProjectFiles(new File(projectPath), projectPath);
+		return FindClasses.findAffectedMatches(
+				new TreeMap<>(FindClasses.findMatches(projectFiles.getTestFiles(), projectFiles.getProductionFiles())),
+				changedFiles);
+	}
+}
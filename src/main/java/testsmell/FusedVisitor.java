@@ -0,0 +1,235 @@
+package testsmell;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.ForeachStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+/**
+ * Walks a compilation unit once and feeds every node to all registered
+ * {@link SmellVisitor}s, instead of each smell walking the whole tree on its
+ * own.
+ * <p>
+ * A visitor that declines a node (its <code>visit</code> returns false) does
+ * not see anything below that node, exactly as if it had not called
+ * <code>super.visit</code> in its own <code>VoidVisitorAdapter</code>. Subtrees
+ * that every visitor declined are not walked at all.
+ */
+public class FusedVisitor extends VoidVisitorAdapter<Void> {
+
+	/**
+	 * The visitors that entered a node are tracked in the bits of a long
+	 */
+	private static final int MAX_VISITORS = Long.SIZE;
+
+	private final List<SmellVisitor> visitors;
+	private final Node[] skippedAt;
+	private int skipping = 0;
+
+	public FusedVisitor(List<SmellVisitor> visitors) {
+		if (visitors.size() > MAX_VISITORS)
+			throw new IllegalArgumentException("At most " + MAX_VISITORS + " visitors can share a walk");
+		this.visitors = new ArrayList<>(visitors);
+		this.skippedAt = new Node[visitors.size()];
+	}
+
+	private interface Enter {
+		boolean visit(SmellVisitor visitor);
+	}
+
+	private interface Leave {
+		void endVisit(SmellVisitor visitor);
+	}
+
+	/**
+	 * Calls <code>visit</code> on every visitor that is not skipping the current
+	 * subtree and returns the set of visitors that entered the node
+	 */
+	private long enter(Node n, Enter enter) {
+		long entered = 0;
+		for (int i = 0; i < visitors.size(); i++) {
+			if (skippedAt[i] == null) {
+				if (enter.visit(visitors.get(i))) {
+					entered |= 1L << i;
+				} else {
+					skippedAt[i] = n;
+					skipping++;
+				}
+			}
+		}
+		return entered;
+	}
+
+	/**
+	 * Calls <code>endVisit</code> on every visitor that entered the node and
+	 * re-enables the visitors that skipped the subtree rooted at it
+	 */
+	private void leave(Node n, long entered, Leave leave) {
+		for (int i = 0; i < visitors.size(); i++) {
+			if ((entered & (1L << i)) != 0) {
+				leave.endVisit(visitors.get(i));
+			} else if (skippedAt[i] == n) {
+				skippedAt[i] = null;
+				skipping--;
+			}
+		}
+	}
+
+	private boolean hasActiveVisitors() {
+		return skipping < visitors.size();
+	}
+
+	@Override
+	public void visit(CompilationUnit n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(FieldDeclaration n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(MethodDeclaration n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(VariableDeclarator n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(VariableDeclarationExpr n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(MethodCallExpr n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(NameExpr n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(ObjectCreationExpr n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(ConditionalExpr n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(IfStmt n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(SwitchStmt n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(ForStmt n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(ForeachStmt n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(WhileStmt n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(ThrowStmt n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+
+	@Override
+	public void visit(CatchClause n, Void arg) {
+		long entered = enter(n, v -> v.visit(n));
+		if (hasActiveVisitors())
+			super.visit(n, arg);
+		leave(n, entered, v -> v.endVisit(n));
+	}
+}
@@ -0,0 +1,395 @@
+package testsmell;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Records the wall time, CPU time and allocated bytes of every phase a file goes
+ * through and of every smell analyzed on it, and aggregates them into
+ * histograms that are written out as JSON or CSV at the end of a run. The
+ * slowest files of each phase and smell are kept to spot pathological inputs.
+ * <p>
+ * CPU time and allocated bytes are measured for the current thread through
+ * {@link ThreadMXBean}; they are reported as 0 when the JVM does not support
+ * them. All methods may be called from several threads at once.
+ */
+public class Instrumentation {
+
+	/**
+	 * The number of slowest files kept per phase and smell
+	 */
+	public static final int SLOWEST_FILES = 10;
+
+	public enum Phase {
+		READ, PARSE, ANALYZE, WRITE;
+
+		public String getName() {
+			return name().toLowerCase();
+		}
+	}
+
+	private final ThreadMXBean threadMXBean;
+	private final boolean cpuTimeSupported;
+	private final boolean allocatedBytesSupported;
+	private final Map<String, Stats> phases = new LinkedHashMap<>();
+	private final Map<String, Stats> smells = new LinkedHashMap<>();
+
+	private Instrumentation() {
+		threadMXBean = ManagementFactory.getThreadMXBean();
+		cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+		if (cpuTimeSupported && !threadMXBean.isThreadCpuTimeEnabled())
+			threadMXBean.setThreadCpuTimeEnabled(true);
+		allocatedBytesSupported = threadMXBean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported();
+		if (allocatedBytesSupported)
+			((com.sun.management.ThreadMXBean) threadMXBean).setThreadAllocatedMemoryEnabled(true);
+		for (Phase phase : Phase.values())
+			phases.put(phase.getName(), new Stats(phase.getName()));
+	}
+
+	/**
+	 * Factory method that provides a new instance of the Instrumentation
+	 *
+	 * @return new Instrumentation instance
+	 */
+	public static Instrumentation createInstrumentation() {
+		return new Instrumentation();
+	}
+
+	/**
+	 * Takes a snapshot of the current thread's counters, to be passed to one of
+	 * the <code>record</code> methods once the measured work is done on the same
+	 * thread
+	 */
+	public Sample start() {
+		return new Sample(System.nanoTime(), getCpuTime(), getAllocatedBytes());
+	}
+
+	/**
+	 * Records the work done on the current thread since <code>start</code> as a
+	 * run of the given phase on the given file
+	 */
+	public void record(Phase phase, String file, Sample start) {
+		record(phases.get(phase.getName()), file, start);
+	}
+
+	/**
+	 * Records the work done on the current thread since <code>start</code> as an
+	 * analysis of the given smell on the given file
+	 */
+	public void recordSmell(String smellName, String file, Sample start) {
+		Stats stats;
+		synchronized (smells) {
+			stats = smells.computeIfAbsent(smellName, Stats::new);
+		}
+		record(stats, file, start);
+	}
+
+	private void record(Stats stats, String file, Sample start) {
+		long wallTime = System.nanoTime() - start.wallTime;
+		long cpuTime = getCpuTime() - start.cpuTime;
+		long allocatedBytes = getAllocatedBytes() - start.allocatedBytes;
+		stats.add(file, wallTime, cpuTime, allocatedBytes);
+	}
+
+	private long getCpuTime() {
+		return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+	}
+
+	private long getAllocatedBytes() {
+		if (!allocatedBytesSupported)
+			return 0;
+		return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	public List<Stats> getPhaseStats() {
+		return new ArrayList<>(phases.values());
+	}
+
+	public List<Stats> getSmellStats() {
+		synchronized (smells) {
+			return new ArrayList<>(smells.values());
+		}
+	}
+
+	/**
+	 * Writes all statistics into <code>profile.json</code> and
+	 * <code>profile.csv</code> of the given directory
+	 */
+	public void dump(File directory) throws IOException {
+		directory.mkdirs();
+		try (Writer writer = new BufferedWriter(new FileWriter(new File(directory, "profile.json")))) {
+			writeJson(writer);
+		}
+		try (Writer writer = new BufferedWriter(new FileWriter(new File(directory, "profile.csv")))) {
+			writeCsv(writer);
+		}
+	}
+
+	/**
+	 * Writes all statistics, including the histogram buckets and the slowest
+	 * files, as a JSON object with a "phases" and a "smells" array
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		writer.append("{\n");
+		writeJson(writer, "phases", getPhaseStats());
+		writer.append(",\n");
+		writeJson(writer, "smells", getSmellStats());
+		writer.append("\n}\n");
+	}
+
+	private static void writeJson(Writer writer, String name, List<Stats> statsList) throws IOException {
+		writer.append("  ").append(quote(name)).append(": [");
+		for (int i = 0; i < statsList.size(); i++) {
+			if (i > 0)
+				writer.append(",");
+			statsList.get(i).writeJson(writer);
+		}
+		writer.append("\n  ]");
+	}
+
+	/**
+	 * Writes one row per phase or smell and metric, with the count, total and
+	 * percentiles of the metric
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		writer.append("kind,name,metric,count,total,min,mean,p50,p90,p99,max").append(System.lineSeparator());
+		for (Stats stats : getPhaseStats())
+			stats.writeCsv(writer, "phase");
+		for (Stats stats : getSmellStats())
+			stats.writeCsv(writer, "smell");
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if (c < 0x20)
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * The counters of a thread at the start of a measurement
+	 */
+	public static final class Sample {
+		private final long wallTime;
+		private final long cpuTime;
+		private final long allocatedBytes;
+
+		private Sample(long wallTime, long cpuTime, long allocatedBytes) {
+			this.wallTime = wallTime;
+			this.cpuTime = cpuTime;
+			this.allocatedBytes = allocatedBytes;
+		}
+	}
+
+	/**
+	 * The measurements of one phase or smell
+	 */
+	public static final class Stats {
+		private final String name;
+		private final Histogram wallTime = new Histogram("wallNanos");
+		private final Histogram cpuTime = new Histogram("cpuNanos");
+		private final Histogram allocatedBytes = new Histogram("allocatedBytes");
+		private final PriorityQueue<SlowFile> slowest = new PriorityQueue<>();
+
+		private Stats(String name) {
+			this.name = name;
+		}
+
+		private synchronized void add(String file, long wallTime, long cpuTime, long allocatedBytes) {
+			this.wallTime.add(wallTime);
+			this.cpuTime.add(cpuTime);
+			this.allocatedBytes.add(allocatedBytes);
+			if (slowest.size() < SLOWEST_FILES || slowest.peek().wallTime < wallTime) {
+				slowest.add(new SlowFile(file, wallTime));
+				if (slowest.size() > SLOWEST_FILES)
+					slowest.poll();
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Histogram getWallTime() {
+			return wallTime;
+		}
+
+		public Histogram getCpuTime() {
+			return cpuTime;
+		}
+
+		public Histogram getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * The files with the longest wall time, slowest first
+		 */
+		public synchronized List<String> getSlowestFiles() {
+			List<SlowFile> files = new ArrayList<>(slowest);
+			Collections.sort(files, Collections.reverseOrder());
+			List<String> names = new ArrayList<>();
+			for (SlowFile file : files)
+				names.add(file.file);
+			return names;
+		}
+
+		private synchronized void writeJson(Writer writer) throws IOException {
+			writer.append("\n    {\"name\": ").append(quote(name)).append(", \"count\": ")
+					.append(String.valueOf(wallTime.getCount()));
+			for (Histogram histogram : new Histogram[] { wallTime, cpuTime, allocatedBytes }) {
+				writer.append(",\n      ").append(quote(histogram.metric)).append(": ");
+				histogram.writeJson(writer);
+			}
+			List<SlowFile> files = new ArrayList<>(slowest);
+			Collections.sort(files, Collections.reverseOrder());
+			writer.append(",\n      \"slowest\": [");
+			for (int i = 0; i < files.size(); i++) {
+				writer.append(i > 0 ? ", " : "").append("{\"file\": ").append(quote(String.valueOf(files.get(i).file)))
+						.append(", \"wallNanos\": ").append(String.valueOf(files.get(i).wallTime)).append("}");
+			}
+			writer.append("]}");
+		}
+
+		private synchronized void writeCsv(Writer writer, String kind) throws IOException {
+			for (Histogram histogram : new Histogram[] { wallTime, cpuTime, allocatedBytes }) {
+				writer.append(kind).append(",").append(name).append(",").append(histogram.metric).append(",")
+						.append(String.valueOf(histogram.getCount())).append(",")
+						.append(String.valueOf(histogram.getTotal())).append(",")
+						.append(String.valueOf(histogram.getMin())).append(",")
+						.append(String.valueOf(histogram.getMean())).append(",")
+						.append(String.valueOf(histogram.getPercentile(50))).append(",")
+						.append(String.valueOf(histogram.getPercentile(90))).append(",")
+						.append(String.valueOf(histogram.getPercentile(99))).append(",")
+						.append(String.valueOf(histogram.getMax())).append(System.lineSeparator());
+			}
+		}
+	}
+
+	private static final class SlowFile implements Comparable<SlowFile> {
+		private final String file;
+		private final long wallTime;
+
+		private SlowFile(String file, long wallTime) {
+			this.file = file;
+			this.wallTime = wallTime;
+		}
+
+		@Override
+		public int compareTo(SlowFile other) {
+			return Long.compare(wallTime, other.wallTime);
+		}
+	}
+
+	/**
+	 * A histogram of non-negative values in power of two buckets: bucket
+	 * <code>i</code> counts the values from <code>2^(i-1)</code> to
+	 * <code>2^i - 1</code>, and bucket 0 counts the zeros. Percentiles are
+	 * reported as the upper bound of their bucket, capped at the maximum. Not
+	 * thread safe; {@link Stats} synchronizes access.
+	 */
+	public static final class Histogram {
+		private final String metric;
+		private final long[] buckets = new long[Long.SIZE];
+		private long count;
+		private long total;
+		private long min = Long.MAX_VALUE;
+		private long max;
+
+		private Histogram(String metric) {
+			this.metric = metric;
+		}
+
+		private void add(long value) {
+			// counters of another thread or a disabled counter can make a delta negative
+			value = Math.max(0, value);
+			buckets[Long.SIZE - Long.numberOfLeadingZeros(value)]++;
+			count++;
+			total += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public long getMin() {
+			return count == 0 ? 0 : min;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public long getMean() {
+			return count == 0 ? 0 : total / count;
+		}
+
+		/**
+		 * @param percent
+		 *            between 0 and 100
+		 * @return an upper bound of the given percentile of the values
+		 */
+		public long getPercentile(double percent) {
+			if (count == 0)
+				return 0;
+			long rank = (long) Math.ceil(count * percent / 100);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0)
+					return Math.min(max, getUpperBound(i));
+			}
+			return max;
+		}
+
+		private static long getUpperBound(int bucket) {
+			return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+		}
+
+		private void writeJson(Writer writer) throws IOException {
+			writer.append("{\"total\": ").append(String.valueOf(total)).append(", \"min\": ")
+					.append(String.valueOf(getMin())).append(", \"mean\": ").append(String.valueOf(getMean()))
+					.append(", \"p50\": ").append(String.valueOf(getPercentile(50))).append(", \"p90\": ")
+					.append(String.valueOf(getPercentile(90))).append(", \"p99\": ")
+					.append(String.valueOf(getPercentile(99))).append(", \"max\": ").append(String.valueOf(max))
+					.append(", \"buckets\": [");
+			boolean first = true;
+			for (int i = 0; i < buckets.length; i++) {
+				if (buckets[i] == 0)
+					continue;
+				writer.append(first ? "" : ", ").append("[").append(String.valueOf(getUpperBound(i))).append(", ")
+						.append(String.valueOf(buckets[i])).append("]");
+				first = false;
+			}
+			writer.append("]}");
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package testsmell;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import testsmell.jfr.CacheHitEvent;
+import testsmell.jfr.FileParsedEvent;
+
+/**
+ * Keeps the parsed production files, so a production class that is tested by
+ * several test files (e.g. FooTest and FooIT) is parsed only once. Entries are
+ * keyed by path, modification time and size, and the least recently used ones
+ * are evicted once the cached files add up to the maximum size. The cache can
+ * be used concurrently; a file requested by several threads at once is parsed
+ * by one of them.
+ * <p>
+ * The compilation units are shared between test files and must not be
+ * modified.
+ */
+public class ProductionFileCache {
+
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	private Cache<Key, CompilationUnit> compilationUnits;
+
+	private ProductionFileCache(long maxBytes) {
+		compilationUnits = CacheBuilder.newBuilder().maximumWeight(maxBytes)
+				.weigher((Key key, CompilationUnit compilationUnit) -> (int) Math.min(key.size, Integer.MAX_VALUE))
+				.build();
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ProductionFileCache
+	 *
+	 * @param maxBytes
+	 *            the maximum total size of the source files whose compilation
+	 *            units are kept
+	 * @return new ProductionFileCache instance
+	 */
+	public static ProductionFileCache createProductionFileCache(long maxBytes) {
+		return new ProductionFileCache(maxBytes);
+	}
+
+	/**
+	 * Returns the compilation unit of the production file, parsing it if it is not
+	 * cached or changed since it was cached
+	 *
+	 * @param content
+	 *            the content of the file if it was already read, or null
+	 * @throws IOException
+	 */
+	public CompilationUnit getCompilationUnit(String productionFilePath, byte[] content) throws IOException {
+		Path path = Paths.get(productionFilePath);
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		Key key = new Key(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+		CacheHitEvent cacheHitEvent = new CacheHitEvent();
+		cacheHitEvent.begin();
+		boolean[] parsed = new boolean[1];
+		try {
+			CompilationUnit compilationUnit = compilationUnits.get(key, () -> {
+				parsed[0] = true;
+				FileParsedEvent fileParsedEvent = new FileParsedEvent();
+				fileParsedEvent.begin();
+				byte[] bytes = content != null ? content : SourceLoader.read(path);
+				CompilationUnit parsedUnit = SourceLoader.parse(bytes);
+				fileParsedEvent.record(productionFilePath, "production", bytes.length, parsedUnit);
+				return parsedUnit;
+			});
+			if (!parsed[0])
+				cacheHitEvent.record(productionFilePath, "production");
+			return compilationUnit;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (UncheckedExecutionException e) {
+			// e.g. a ParseProblemException, thrown as it would be without the cache
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	private static final class Key {
+		private final Path path;
+		private final long lastModified;
+		private final long size;
+
+		private Key(Path path, long lastModified, long size) {
+			this.path = path;
+			this.lastModified = lastModified;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return path.equals(other.path) && lastModified == other.lastModified && size == other.size;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, lastModified, size);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package testsmell;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Analyzes several projects as one stream of test files through a shared
+ * {@link SmellPipeline}, so the next project is already read and parsed while
+ * the last files of the previous one are analyzed, instead of every project
+ * waiting for the one before to drain. The largest projects (by the bytes of
+ * their test and production files) go first, so the small ones fill in at the
+ * end (the longest-processing-time-first heuristic).
+ * <p>
+ * The inputPaths files are read twice: once up front, keeping only the number
+ * of test files of each project and their total size, and once more, a line at
+ * a time, while their test files are fed to the pipeline. An analyzed test file
+ * is let go once it is written, so the memory in flight is bounded by the
+ * window of the pipeline however large the projects are.
+ * <p>
+ * Each project gets the same outputSmells/&lt;project&gt;.csv as if it was
+ * analyzed alone: its test files keep their inputPaths order, and its output
+ * file is opened when its first file is written and closed after its last.
+ */
+public class ProjectScheduler {
+
+	private TestSmellDetector testSmellDetector;
+	private SmellPipeline smellPipeline;
+
+	private ProjectScheduler(TestSmellDetector testSmellDetector, SmellPipeline smellPipeline) {
+		this.testSmellDetector = testSmellDetector;
+		this.smellPipeline = smellPipeline;
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ProjectScheduler
+	 *
+	 * @param smellPipeline
+	 *            the pipeline of the test files of all projects, analyzing with
+	 *            the given detector
+	 * @return new ProjectScheduler instance
+	 */
+	public static ProjectScheduler createProjectScheduler(TestSmellDetector testSmellDetector,
+			SmellPipeline smellPipeline) {
+		return new ProjectScheduler(testSmellDetector, smellPipeline);
+	}
+
+	/**
+	 * Analyzes the test files listed in the inputPaths files of the projects into
+	 * their outputSmells files
+	 *
+	 * @throws IOException
+	 */
+	public void run(List<String> projectNames) throws IOException {
+		List<Project> projects = new ArrayList<>();
+		for (String projectName : projectNames) {
+			Project project = new Project(projectName);
+			if (project.testFileCount == 0)
+				project.finish();
+			else
+				projects.add(project);
+		}
+		projects.sort(Comparator.comparingLong((Project project) -> -project.size)
+				.thenComparing(project -> project.projectName));
+
+		Iterator<Project> writing = projects.iterator();
+		Project[] current = { null };
+		try (TestFiles testFiles = new TestFiles(projects.iterator())) {
+			smellPipeline.run(testFiles, file -> {
+				if (current[0] == null)
+					current[0] = writing.next();
+				current[0].write(file);
+				if (current[0].written == current[0].testFileCount) {
+					current[0].finish();
+					current[0] = null;
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			if (current[0] != null)
+				current[0].close();
+		}
+	}
+
+	/**
+	 * The test files of the projects, one project after the other, read from
+	 * their inputPaths files as the pipeline takes them
+	 */
+	private static class TestFiles implements Iterator<TestFile>, Closeable {
+		private final Iterator<Project> projects;
+		private Project project;
+		private BufferedReader in;
+		private int read;
+		private String next;
+
+		private TestFiles(Iterator<Project> projects) {
+			this.projects = projects;
+		}
+
+		@Override
+		public boolean hasNext() {
+			try {
+				while (next == null) {
+					if (in == null) {
+						if (!projects.hasNext())
+							return false;
+						project = projects.next();
+						in = TestFile.openTestFiles(project.projectName);
+						read = 0;
+					}
+					String line = in.readLine();
+					// the rows were counted before, and are written against that count
+					if ((line == null) != (read == project.testFileCount))
+						throw new IOException(
+								"inputPaths/" + project.projectName + ".csv changed while it was analyzed");
+					if (line == null) {
+						close();
+					} else {
+						next = line;
+						read++;
+					}
+				}
+				return true;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public TestFile next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			TestFile testFile = TestFile.createTestFile(next);
+			next = null;
+			return testFile;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (in != null)
+				in.close();
+			in = null;
+		}
+	}
+
+	/**
+	 * A project, with the number and total size of its test files, and its output
+	 * file while its test files are written
+	 */
+	private class Project {
+		private final String projectName;
+		private int testFileCount;
+		private long size;
+		private final List<String> smellNames = testSmellDetector.getTestSmellNames();
+		private final DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+		private ResultsWriter resultsWriter;
+		private int written;
+
+		private Project(String projectName) throws IOException {
+			this.projectName = projectName;
+			try (BufferedReader in = TestFile.openTestFiles(projectName)) {
+				String str;
+				while ((str = in.readLine()) != null) {
+					testFileCount++;
+					size += TestFile.createTestFile(str).getSize();
+				}
+			}
+		}
+
+		private void open() throws IOException {
+			resultsWriter = ResultsWriter.createResultsWriter(projectName);
+			List<String> columnNames = testSmellDetector.getTestSmellNames();
+			columnNames.add(0, "Test Methods");
+			resultsWriter.writeColumnName(columnNames);
+		}
+
+		private void write(TestFile file) throws IOException {
+			if (resultsWriter == null)
+				open();
+			System.out.println(dateFormat.format(new Date()) + " Processed: " + file.getTestFilePath());
+			Instrumentation instrumentation = testSmellDetector.getInstrumentation();
+			Instrumentation.Sample start = instrumentation == null ? null : instrumentation.start();
+			resultsWriter.writeTestFile(file, smellNames);
+			if (instrumentation != null)
+				instrumentation.record(Instrumentation.Phase.WRITE, file.getTestFilePath(), start);
+			written++;
+		}
+
+		/**
+		 * Closes the output file, writing it with only the column names if the
+		 * project has no test files
+		 */
+		private void finish() throws IOException {
+			if (resultsWriter == null)
+				open();
+			close();
+			System.out.println("end");
+		}
+
+		private void close() throws IOException {
+			if (resultsWriter != null)
+				resultsWriter.close();
+			resultsWriter = null;
+		}
+	}
+}
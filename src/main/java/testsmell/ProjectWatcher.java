@@ -0,0 +1,318 @@
+package testsmell;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import extractTestFiles.DirExplorer;
+import extractTestFiles.FindClasses;
+import extractTestFiles.ProjectFiles;
+
+/**
+ * Analyzes projects once and then watches their directories, re-analyzing only
+ * the test files that changed and the test files whose production file changed.
+ * Changes are collected until no further change arrives for the debounce time,
+ * so saving several files at once, or an editor writing a file in several
+ * steps, results in a single re-analysis.
+ * <p>
+ * When a java file is created or deleted, or a file that is neither a known test
+ * nor production file changes, the project is classified again with
+ * {@link FindClasses}, and the test files whose pairing changed are
+ * re-analyzed. The results of the other test files are kept, and the output
+ * file of the project (outputSmells/&lt;project&gt;.csv, or .smells with
+ * -Dtestsmell.outputFormat=columnar) is rewritten from them and the new
+ * results. Its inputPaths file is rewritten whenever the pairs change.
+ * <p>
+ * Changed files are matched with the test and production files by their
+ * absolute, normalized paths, so a project given by a relative path or one with
+ * "." or ".." segments is watched like any other.
+ * <p>
+ * Usage: <code>java testsmell.ProjectWatcher projectDir...</code>. The debounce
+ * time is taken from -Dtestsmell.debounceMillis; -Dtestsmell.threads,
+ * -Dtestsmell.cacheDir and -Dtestsmell.outputFormat are used as in Main.
+ */
+public class ProjectWatcher {
+
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+	/**
+	 * Changes that keep arriving are re-analyzed at the latest after this many
+	 * debounce times
+	 */
+	private static final int MAX_DEBOUNCES = 10;
+
+	private TestSmellDetector testSmellDetector;
+	private int threads;
+	private long debounceMillis;
+	private WatchService watchService;
+	private Map<WatchKey, WatchedProject> watchKeys = new ConcurrentHashMap<>();
+	private List<WatchedProject> projects = new ArrayList<>();
+
+	private ProjectWatcher(TestSmellDetector testSmellDetector, int threads, long debounceMillis)
+			throws IOException {
+		this.testSmellDetector = testSmellDetector;
+		this.threads = threads;
+		this.debounceMillis = debounceMillis;
+		watchService = FileSystems.getDefault().newWatchService();
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ProjectWatcher
+	 *
+	 * @param threads
+	 *            the maximum number of files analyzed at the same time
+	 * @param debounceMillis
+	 *            the time without changes after which changes are re-analyzed
+	 * @return new ProjectWatcher instance
+	 * @throws IOException
+	 */
+	public static ProjectWatcher createProjectWatcher(TestSmellDetector testSmellDetector, int threads,
+			long debounceMillis) throws IOException {
+		return new ProjectWatcher(testSmellDetector, threads, debounceMillis);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int threads = Integer.getInteger("testsmell.threads", Runtime.getRuntime().availableProcessors());
+		long debounceMillis = Long.getLong("testsmell.debounceMillis", DEFAULT_DEBOUNCE_MILLIS);
+		String cacheDir = System.getProperty("testsmell.cacheDir", "resultCache");
+		ResultCache resultCache = cacheDir.isEmpty() ? null : ResultCache.createResultCache(cacheDir);
+
+		new File("inputPaths").mkdirs();
+		new File("outputSmells").mkdirs();
+		ProjectWatcher projectWatcher = createProjectWatcher(TestSmellDetector.createTestSmellDetector(resultCache),
+				threads, debounceMillis);
+		for (String project : args)
+			projectWatcher.addProject(project);
+		projectWatcher.watch();
+	}
+
+	/**
+	 * Classifies and analyzes all test files of the project, writes its output
+	 * file and starts watching its directories
+	 *
+	 * @throws IOException
+	 */
+	public void addProject(String projectPath) throws IOException {
+		WatchedProject project = new WatchedProject(projectPath);
+		projects.add(project);
+		classify(project);
+		analyze(project, project.testToProduction.keySet());
+		writeOutput(project);
+		System.out.println("Watching " + projectPath + " with " + project.testToProduction.size() + " test files");
+	}
+
+	/**
+	 * Re-analyzes the watched projects whenever they change, until the thread is
+	 * interrupted
+	 *
+	 * @throws InterruptedException
+	 */
+	public void watch() throws InterruptedException {
+		while (true) {
+			Map<WatchedProject, Changes> changes = new HashMap<>();
+			collect(watchService.take(), changes);
+			long deadline = System.currentTimeMillis() + MAX_DEBOUNCES * debounceMillis;
+			WatchKey watchKey;
+			while (System.currentTimeMillis() < deadline
+					&& (watchKey = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null)
+				collect(watchKey, changes);
+
+			for (Map.Entry<WatchedProject, Changes> entry : changes.entrySet()) {
+				try {
+					update(entry.getKey(), entry.getValue());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private void collect(WatchKey watchKey, Map<WatchedProject, Changes> changes) {
+		WatchedProject project = watchKeys.get(watchKey);
+		Path directory = (Path) watchKey.watchable();
+		for (WatchEvent<?> event : watchKey.pollEvents()) {
+			if (project == null)
+				continue;
+			Changes projectChanges = changes.computeIfAbsent(project, p -> new Changes());
+			if (event.kind() == OVERFLOW) {
+				// events were lost, so anything may have changed
+				projectChanges.overflow = true;
+				continue;
+			}
+			Path path = directory.resolve((Path) event.context());
+			if (event.kind() == ENTRY_CREATE && Files.isDirectory(path))
+				projectChanges.reclassify = true;
+			if (path.toString().endsWith(".java")) {
+				projectChanges.paths.add(getKey(path));
+				if (event.kind() != ENTRY_MODIFY)
+					projectChanges.reclassify = true;
+			}
+		}
+		if (!watchKey.reset())
+			watchKeys.remove(watchKey);
+	}
+
+	/**
+	 * Re-analyzes the test files of the project affected by the changes and
+	 * rewrites its output
+	 */
+	private void update(WatchedProject project, Changes changes) throws IOException {
+		long start = System.currentTimeMillis();
+		Set<String> affected = new TreeSet<>();
+		boolean removed = false;
+
+		for (String path : changes.paths) {
+			if (!project.testsByKey.containsKey(path) && !project.productionFiles.contains(path))
+				changes.reclassify = true;
+		}
+		if (changes.reclassify || changes.overflow) {
+			Map<String, String> previous = project.testToProduction;
+			classify(project);
+			for (Map.Entry<String, String> pair : project.testToProduction.entrySet()) {
+				if (!Objects.equals(previous.get(pair.getKey()), pair.getValue()))
+					affected.add(pair.getKey());
+			}
+			removed = project.results.keySet().retainAll(project.testToProduction.keySet());
+		}
+		if (changes.overflow)
+			affected.addAll(project.testToProduction.keySet());
+
+		for (String path : changes.paths) {
+			if (project.testsByKey.containsKey(path))
+				affected.add(project.testsByKey.get(path));
+			affected.addAll(project.testsByProduction.getOrDefault(path, new HashSet<>()));
+		}
+		if (affected.isEmpty() && !removed)
+			return;
+
+		for (String test : affected) {
+			try {
+				project.results.put(test, testSmellDetector.detectSmells(
+						new TestFile(project.projectName, test, project.testToProduction.get(test))));
+			} catch (IOException | RuntimeException e) {
+				// e.g. a file that is being written; its previous results are kept
+				System.err.println("Could not analyze " + test + ": " + e);
+			}
+		}
+		writeOutput(project);
+		System.out.println("Re-analyzed " + affected.size() + " test files of " + project.projectName + " in "
+				+ (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Finds the test and production files of the project, registers its
+	 * directories with the watch service and rewrites its inputPaths file
+	 */
+	private void classify(WatchedProject project) throws IOException {
+		ProjectFiles projectFiles = FindClasses.extractProjectFiles(new File(project.projectPath),
+				project.projectPath, (level, path, directory) -> {
+					try {
+						watchKeys.put(directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE,
+								ENTRY_MODIFY), project);
+					} catch (IOException e) {
+						System.err.println("Could not watch " + directory + ": " + e.getMessage());
+					}
+				});
+		project.testToProduction = new TreeMap<>(
+				FindClasses.findMatches(projectFiles.getTestFiles(), projectFiles.getProductionFiles()));
+		project.testsByKey = new HashMap<>();
+		project.productionFiles = new HashSet<>();
+		for (String production : projectFiles.getProductionFiles())
+			project.productionFiles.add(getKey(Paths.get(production)));
+		project.testsByProduction = new HashMap<>();
+		for (Map.Entry<String, String> pair : project.testToProduction.entrySet()) {
+			project.testsByKey.put(getKey(Paths.get(pair.getKey())), pair.getKey());
+			if (!pair.getValue().isEmpty())
+				project.testsByProduction.computeIfAbsent(getKey(Paths.get(pair.getValue())), p -> new HashSet<>())
+						.add(pair.getKey());
+		}
+		FindClasses.translateToCSV(project.testToProduction, project.projectPath);
+	}
+
+	/**
+	 * Returns the key a file is looked up by, i.e. its absolute, normalized path
+	 */
+	private static String getKey(Path path) {
+		return path.toAbsolutePath().normalize().toString();
+	}
+
+	private void analyze(WatchedProject project, Set<String> tests) throws IOException {
+		List<TestFile> testFiles = new ArrayList<>();
+		for (String test : tests)
+			testFiles.add(new TestFile(project.projectName, test, project.testToProduction.get(test)));
+		for (TestFile testFile : testSmellDetector.detectSmells(testFiles, threads))
+			project.results.put(testFile.getTestFilePath(), testFile);
+	}
+
+	/**
+	 * Writes the results of all test files of the project next to its output
+	 * file and then moves them over it, so readers never see a partial file
+	 */
+	private void writeOutput(WatchedProject project) throws IOException {
+		File outputFile = ResultsWriter.getOutputFile(project.projectName);
+		File tempFile = new File(outputFile.getPath() + ".tmp");
+		List<String> smellNames = testSmellDetector.getTestSmellNames();
+		List<String> columnNames = testSmellDetector.getTestSmellNames();
+		columnNames.add(0, "Test Methods");
+		try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(tempFile, ResultsWriter.isColumnarOutput(),
+				ResultsWriter.DEFAULT_BUFFER_SIZE, ResultsWriter.DEFAULT_FLUSH_INTERVAL_MILLIS)) {
+			resultsWriter.writeColumnName(columnNames);
+			for (TestFile testFile : project.results.values())
+				resultsWriter.writeTestFile(testFile, smellNames);
+		}
+		Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * A watched project, with the pairs it was last classified into and the
+	 * results of its test files. The test and production files are also indexed
+	 * by their keys, see {@link ProjectWatcher#getKey(Path)}.
+	 */
+	private static final class WatchedProject {
+		private final String projectPath;
+		private final String projectName;
+		private Map<String, String> testToProduction = new TreeMap<>();
+		private Map<String, String> testsByKey = new HashMap<>();
+		private Set<String> productionFiles = new HashSet<>();
+		private Map<String, Set<String>> testsByProduction = new HashMap<>();
+		private final Map<String, TestFile> results = new TreeMap<>();
+
+		private WatchedProject(String projectPath) {
+			this.projectPath = projectPath;
+			this.projectName = projectPath.split("/")[projectPath.split("/").length - 1];
+		}
+	}
+
+	/**
+	 * The changes of a project collected until they are re-analyzed
+	 */
+	private static final class Changes {
+		private final Set<String> paths = new HashSet<>();
+		private boolean reclassify;
+		private boolean overflow;
+	}
+}
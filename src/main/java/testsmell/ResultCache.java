@@ -0,0 +1,175 @@
+package testsmell;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An on-disk cache of the test methods and smelly methods found in test files.
+ * Entries are keyed by the SHA-256 of the name and content of the test file,
+ * its production file and the detector version, so a file is only analyzed
+ * again when one of them changed. The name is part of the key because the
+ * cached method names start with it. Each entry is a file of its own, written
+ * atomically, so several threads (or runs) can share the cache.
+ */
+public class ResultCache {
+
+	/**
+	 * Version of the entry layout and of what makes up a key, part of every key
+	 */
+	private static final int FORMAT_VERSION = 3;
+
+	private Path cacheDir;
+
+	private ResultCache(Path cacheDir) throws IOException {
+		this.cacheDir = cacheDir;
+		Files.createDirectories(cacheDir);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ResultCache
+	 *
+	 * @param cacheDir
+	 *            the directory the entries are stored in, created if needed
+	 * @return new ResultCache instance
+	 * @throws IOException
+	 */
+	public static ResultCache createResultCache(String cacheDir) throws IOException {
+		return new ResultCache(Paths.get(cacheDir));
+	}
+
+	/**
+	 * Computes the key of a test file
+	 *
+	 * @param detectorVersion
+	 *            identifies the detector, i.e. its smells and their logic
+	 * @param testFileName
+	 *            the name of the test file, which the cached method names start
+	 *            with
+	 * @param testFileContent
+	 *            the content of the test file
+	 * @param productionFileContent
+	 *            the content of the production file, or null if there is none
+	 * @return the key, as a hex string
+	 */
+	public String getKey(String detectorVersion, String testFileName, byte[] testFileContent,
+			byte[] productionFileContent) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		update(digest, (FORMAT_VERSION + ":" + detectorVersion).getBytes(StandardCharsets.UTF_8));
+		update(digest, testFileName.getBytes(StandardCharsets.UTF_8));
+		update(digest, testFileContent);
+		update(digest, productionFileContent);
+
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest())
+			key.append(String.format("%02x", b));
+		return key.toString();
+	}
+
+	/**
+	 * Adds the content to the digest, prefixed with its length so that adjacent
+	 * contents cannot be confused
+	 */
+	private static void update(MessageDigest digest, byte[] content) {
+		int length = content == null ? -1 : content.length;
+		digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+				(byte) length });
+		if (content != null)
+			digest.update(content);
+	}
+
+	private Path getEntryPath(String key) {
+		return cacheDir.resolve(key.substring(0, 2)).resolve(key);
+	}
+
+	/**
+	 * Loads the cached results into the test file
+	 *
+	 * @return true if the key was cached, false if the file must be analyzed
+	 */
+	public boolean load(String key, TestFile testFile) {
+		List<String> testMethods = new ArrayList<>();
+		List<String> smellNames = new ArrayList<>();
+		List<List<String>> smellyMethods = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(getEntryPath(key))))) {
+			for (int i = in.readInt(); i > 0; i--)
+				testMethods.add(in.readUTF());
+			for (int i = in.readInt(); i > 0; i--) {
+				smellNames.add(in.readUTF());
+				List<String> methods = new ArrayList<>();
+				for (int j = in.readInt(); j > 0; j--)
+					methods.add(in.readUTF());
+				smellyMethods.add(methods);
+			}
+		} catch (NoSuchFileException e) {
+			return false;
+		} catch (IOException e) {
+			// a damaged entry is analyzed again and overwritten
+			e.printStackTrace();
+			return false;
+		}
+
+		for (String testMethod : testMethods)
+			testFile.addTestMethod(testMethod);
+		for (int i = 0; i < smellNames.size(); i++) {
+			for (String method : smellyMethods.get(i))
+				testFile.addSmellMethod(smellNames.get(i), method);
+		}
+		return true;
+	}
+
+	/**
+	 * Stores the results of an analyzed test file. A failure to store is
+	 * reported, but does not fail the analysis.
+	 */
+	public void store(String key, TestFile testFile) {
+		Path entryPath = getEntryPath(key);
+		try {
+			Files.createDirectories(entryPath.getParent());
+			Path tempPath = Files.createTempFile(entryPath.getParent(), key, ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+					Set<String> testMethods = testFile.getTestMethods();
+					out.writeInt(testMethods.size());
+					for (String testMethod : testMethods)
+						out.writeUTF(testMethod);
+					Map<String, List<String>> smellsMethods = testFile.getSmellsMethods();
+					out.writeInt(smellsMethods.size());
+					for (Map.Entry<String, List<String>> entry : smellsMethods.entrySet()) {
+						out.writeUTF(entry.getKey());
+						out.writeInt(entry.getValue().size());
+						for (String method : entry.getValue())
+							out.writeUTF(method);
+					}
+				}
+				Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempPath);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
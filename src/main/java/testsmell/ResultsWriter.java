@@ -1,16 +1,42 @@
 package testsmell;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.Flushable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 
+import testsmell.jfr.RowsWrittenEvent;
+
 /**
- * This class is utilized to write output to a CSV file
+ * This class is utilized to write output to a CSV file. The file is kept open
+ * until the writer is closed; rows are buffered and flushed to disk whenever the
+ * buffer fills up, when the flush interval has elapsed since the last flush, and
+ * on close.
+ * <p>
+ * With -Dtestsmell.outputFormat=columnar, the output file of a project is
+ * written in the binary layout of {@link ColumnarResults} instead, as
+ * outputSmells/&lt;project&gt;.smells. Its rows are kept in memory and written
+ * on close.
  */
-public class ResultsWriter {
+public class ResultsWriter implements Closeable, Flushable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
 
-	private String outputFile;
-	private FileWriter writer;
+	private String outputName;
+	private BufferedWriter writer;
+	private ColumnarResults.Builder columnarResults;
+	private OutputStream columnarOutput;
+	private long flushIntervalMillis;
+	private long lastFlush;
+	private int unflushedRows;
 
 	/**
 	 * Creates the file into which output it to be written into. Results from each
@@ -18,9 +44,17 @@ public class ResultsWriter {
 	 * 
 	 * @throws IOException
 	 */
-	private ResultsWriter(String projectName) throws IOException {
-		outputFile = "outputSmells/" + projectName + ".csv";
-		writer = new FileWriter(outputFile, false);
+	private ResultsWriter(String outputName, Writer output, int bufferSize, long flushIntervalMillis) {
+		this.outputName = outputName;
+		writer = new BufferedWriter(output, bufferSize);
+		this.flushIntervalMillis = flushIntervalMillis;
+		lastFlush = System.currentTimeMillis();
+	}
+
+	private ResultsWriter(String outputName, OutputStream columnarOutput) {
+		this.outputName = outputName;
+		columnarResults = new ColumnarResults.Builder();
+		this.columnarOutput = columnarOutput;
 	}
 
 	/**
@@ -30,7 +64,102 @@ public class ResultsWriter {
 	 * @throws IOException
 	 */
 	public static ResultsWriter createResultsWriter(String projectName) throws IOException {
-		return new ResultsWriter(projectName);
+		return createResultsWriter(projectName, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ResultsWriter
+	 *
+	 * @param bufferSize
+	 *            the number of characters buffered before they are written to disk
+	 * @param flushIntervalMillis
+	 *            the maximum time buffered rows are held back from the disk
+	 * @return new ResultsWriter instance
+	 * @throws IOException
+	 */
+	public static ResultsWriter createResultsWriter(String projectName, int bufferSize, long flushIntervalMillis)
+			throws IOException {
+		return createResultsWriter(getOutputFile(projectName), isColumnarOutput(), bufferSize, flushIntervalMillis);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ResultsWriter, writing
+	 * into the given file in either format, e.g. a temporary file that is moved to
+	 * {@link #getOutputFile(String)} once written
+	 *
+	 * @param columnar
+	 *            whether to write the binary layout of {@link ColumnarResults}
+	 *            rather than CSV
+	 * @return new ResultsWriter instance
+	 * @throws IOException
+	 */
+	public static ResultsWriter createResultsWriter(File outputFile, boolean columnar, int bufferSize,
+			long flushIntervalMillis) throws IOException {
+		if (columnar)
+			return createColumnarResultsWriter(outputFile);
+		return createResultsWriter(outputFile, bufferSize, flushIntervalMillis);
+	}
+
+	/**
+	 * Checks if -Dtestsmell.outputFormat selects the binary layout of
+	 * {@link ColumnarResults}
+	 */
+	public static boolean isColumnarOutput() {
+		return System.getProperty("testsmell.outputFormat", "csv").equals("columnar");
+	}
+
+	/**
+	 * Returns the output file of the project in outputSmells, with the extension
+	 * of the format of -Dtestsmell.outputFormat
+	 */
+	public static File getOutputFile(String projectName) {
+		String extension = isColumnarOutput() ? ColumnarResults.FILE_EXTENSION : ".csv";
+		return new File("outputSmells/" + projectName + extension);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ResultsWriter, writing
+	 * into the given file instead of the project's file in outputSmells
+	 *
+	 * @param outputFile
+	 *            the CSV file, overwritten if it exists
+	 * @param bufferSize
+	 *            the number of characters buffered before they are written to disk
+	 * @param flushIntervalMillis
+	 *            the maximum time buffered rows are held back from the disk
+	 * @return new ResultsWriter instance
+	 * @throws IOException
+	 */
+	public static ResultsWriter createResultsWriter(File outputFile, int bufferSize, long flushIntervalMillis)
+			throws IOException {
+		return new ResultsWriter(outputFile.getPath(), new FileWriter(outputFile, false), bufferSize,
+				flushIntervalMillis);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ResultsWriter, writing
+	 * the given file in the binary layout of {@link ColumnarResults}
+	 *
+	 * @param outputFile
+	 *            the file, overwritten if it exists
+	 * @return new ResultsWriter instance
+	 * @throws IOException
+	 */
+	public static ResultsWriter createColumnarResultsWriter(File outputFile) throws IOException {
+		return new ResultsWriter(outputFile.getPath(), new FileOutputStream(outputFile, false));
+	}
+
+	/**
+	 * Factory method that provides a new instance of the ResultsWriter, writing
+	 * into the given writer (e.g. a response) instead of a file. Closing the
+	 * ResultsWriter closes the writer.
+	 *
+	 * @param outputName
+	 *            the name of the output, used for the events of written rows
+	 * @return new ResultsWriter instance
+	 */
+	public static ResultsWriter createResultsWriter(String outputName, Writer output) {
+		return new ResultsWriter(outputName, output, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
 	}
 
 	/**
@@ -41,7 +170,10 @@ public class ResultsWriter {
 	 * @throws IOException
 	 */
 	public void writeColumnName(List<String> columnNames) throws IOException {
-		writeOutput(columnNames);
+		if (columnarResults != null)
+			columnarResults.setColumnNames(columnNames);
+		else
+			writeOutput(columnNames);
 	}
 
 	/**
@@ -52,7 +184,51 @@ public class ResultsWriter {
 	 * @throws IOException
 	 */
 	public void writeLine(List<String> columnValues) throws IOException {
-		writeOutput(columnValues);
+		if (columnarResults != null) {
+			columnarResults.addRow(columnValues);
+			unflushedRows++;
+		} else {
+			writeOutput(columnValues);
+		}
+	}
+
+	/**
+	 * Writes a row for every test method of the analyzed file, with the test
+	 * method followed by whether it has each of the given smells. A smell that was
+	 * not analyzed or found nothing in the file is written as "False".
+	 *
+	 * @param smellNames
+	 *            the smells, in the order of the columns
+	 * @throws IOException
+	 */
+	public void writeTestFile(TestFile testFile, List<String> smellNames) throws IOException {
+		writeTestFile(new ArrayList<>(), testFile, smellNames);
+	}
+
+	/**
+	 * Writes the rows of the analyzed file as
+	 * {@link #writeTestFile(TestFile, List)} does, with the given values in front
+	 * of every row
+	 *
+	 * @param leadingValues
+	 *            the values of the first columns, e.g. the position of the test
+	 *            file in the input
+	 * @throws IOException
+	 */
+	public void writeTestFile(List<String> leadingValues, TestFile testFile, List<String> smellNames)
+			throws IOException {
+		int[] smellColumns = testFile.getSmellColumns(smellNames);
+		for (TestFile.Row row : testFile.getRows()) {
+			List<String> columnValues = new ArrayList<>(leadingValues);
+			columnValues.add(row.getTestMethod());
+			for (int smellColumn : smellColumns) {
+				if (smellColumn < 0)
+					columnValues.add("False");
+				else
+					columnValues.add(String.valueOf(row.hasSmell(smellColumn)));
+			}
+			writeLine(columnValues);
+		}
 	}
 
 	/**
@@ -63,8 +239,6 @@ public class ResultsWriter {
 	 * @throws IOException
 	 */
 	private void writeOutput(List<String> dataValues) throws IOException {
-		writer = new FileWriter(outputFile, true);
-
 		for (int i = 0; i < dataValues.size(); i++) {
 			writer.append(String.valueOf(dataValues.get(i)));
 
@@ -74,7 +248,43 @@ public class ResultsWriter {
 				writer.append(System.lineSeparator());
 
 		}
+
+		unflushedRows++;
+		if (System.currentTimeMillis() - lastFlush >= flushIntervalMillis)
+			flush();
+	}
+
+	/**
+	 * Writes all buffered rows to the CSV file. A columnar file can only be
+	 * written once all rows are known, so its rows stay buffered.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (columnarResults != null)
+			return;
+		RowsWrittenEvent event = new RowsWrittenEvent();
+		event.begin();
 		writer.flush();
-		writer.close();
+		event.record(outputName, unflushedRows);
+		unflushedRows = 0;
+		lastFlush = System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes all buffered rows and closes the CSV file
+	 */
+	@Override
+	public void close() throws IOException {
+		RowsWrittenEvent event = new RowsWrittenEvent();
+		event.begin();
+		if (columnarResults != null) {
+			try (OutputStream output = columnarOutput) {
+				columnarResults.write(output);
+			}
+		} else {
+			writer.close();
+		}
+		event.record(outputName, unflushedRows);
+		unflushedRows = 0;
 	}
 }
@@ -0,0 +1,370 @@
+package testsmell;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import extractTestFiles.FindClasses;
+
+/**
+ * Spreads the analysis of projects over several machines that share nothing
+ * but a directory (e.g. an NFS mount) holding inputPaths and outputSmells.
+ * <ol>
+ * <li><code>--prepare projectDir...</code> classifies the projects into their
+ * inputPaths files and records the size of every test file in
+ * inputPaths/&lt;project&gt;.manifest.csv, once for all machines.</li>
+ * <li><code>--shard i/n projectDir...</code>, on every machine with its own i
+ * from 1 to n, analyzes the i-th part of the test files of each project into
+ * outputSmells/&lt;project&gt;.shard-i-of-n.csv.</li>
+ * <li><code>--merge n projectDir...</code> combines the n parts of each project
+ * into outputSmells/&lt;project&gt;.csv (or .smells with
+ * -Dtestsmell.outputFormat=columnar), identical to the file Main writes for the
+ * project. The parts are always CSV.</li>
+ * </ol>
+ * Every machine computes the same partition from the shared inputPaths file and
+ * the sizes in its manifest, never from sizes it finds itself: the test files
+ * are taken largest first (test and production file size), and each goes to the
+ * shard with the fewest bytes so far. Test files of equal size are ordered by a
+ * stable hash of their path.
+ * <p>
+ * The header of every part holds a hash of the inputPaths file and the manifest
+ * it was analyzed from, and every test file of a part is marked by a line with
+ * its input row, even if it has no test methods. The merge rejects parts of
+ * another --prepare, and fails unless every row of the current inputPaths file
+ * is in exactly one part. A part is written to a temporary file and moved into
+ * place when complete, so the merge fails on a missing part rather than merging
+ * a partial one.
+ * -Dtestsmell.threads, -Dtestsmell.readers, -Dtestsmell.maxInFlight,
+ * -Dtestsmell.maxInFlightBytes, -Dtestsmell.cacheDir and
+ * -Dtestsmell.outputFormat are used as in Main.
+ */
+public class ShardedRun {
+
+	private static final String INPUT_ROW_COLUMN = "Input Row";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 1 && args[0].equals("--prepare")) {
+			FindClasses.extractTestClassesToCSVs(Arrays.copyOfRange(args, 1, args.length));
+			for (int i = 1; i < args.length; i++)
+				writeManifest(getProjectName(args[i]));
+		} else if (args.length >= 2 && args[0].equals("--shard")) {
+			String[] shard = args[1].split("/");
+			if (shard.length != 2)
+				throw new IllegalArgumentException("Expected --shard i/n but got " + args[1]);
+			int shardIndex = Integer.parseInt(shard[0]);
+			int shardCount = Integer.parseInt(shard[1]);
+			if (shardIndex < 1 || shardIndex > shardCount)
+				throw new IllegalArgumentException("Expected --shard i/n with 1 <= i <= n but got " + args[1]);
+			int threads = Integer.getInteger("testsmell.threads", Runtime.getRuntime().availableProcessors());
+			String cacheDir = System.getProperty("testsmell.cacheDir", "resultCache");
+			ResultCache resultCache = cacheDir.isEmpty() ? null : ResultCache.createResultCache(cacheDir);
+			TestSmellDetector testSmellDetector = TestSmellDetector.createTestSmellDetector(resultCache);
+			SmellPipeline smellPipeline = SmellPipeline.createSmellPipeline(testSmellDetector,
+					Integer.getInteger("testsmell.readers", 2), threads, threads,
+					Integer.getInteger("testsmell.maxInFlight", 4 * threads),
+					Long.getLong("testsmell.maxInFlightBytes", SmellPipeline.DEFAULT_MAX_IN_FLIGHT_BYTES));
+			for (int i = 2; i < args.length; i++)
+				runShard(getProjectName(args[i]), shardIndex, shardCount, testSmellDetector, smellPipeline);
+		} else if (args.length >= 2 && args[0].equals("--merge")) {
+			int shardCount = Integer.parseInt(args[1]);
+			for (int i = 2; i < args.length; i++)
+				merge(getProjectName(args[i]), shardCount);
+		} else {
+			System.err.println("Usage: ShardedRun --prepare projectDir...");
+			System.err.println("       ShardedRun --shard i/n projectDir...");
+			System.err.println("       ShardedRun --merge n projectDir...");
+			System.exit(2);
+		}
+	}
+
+	private static String getProjectName(String projectPath) {
+		return projectPath.split("/")[projectPath.split("/").length - 1];
+	}
+
+	private static File getShardFile(String projectName, int shardIndex, int shardCount) {
+		return new File("outputSmells/" + projectName + ".shard-" + shardIndex + "-of-" + shardCount + ".csv");
+	}
+
+	private static File getManifestFile(String projectName) {
+		return new File("inputPaths/" + projectName + ".manifest.csv");
+	}
+
+	private static String getInputRowColumn(Manifest manifest) {
+		return INPUT_ROW_COLUMN + " " + manifest.hash;
+	}
+
+	/**
+	 * Records the size of every test file of the project's inputPaths file, one
+	 * line per row with the size followed by the path of the test file
+	 */
+	private static void writeManifest(String projectName) throws IOException {
+		File manifestFile = getManifestFile(projectName);
+		File tempFile = new File(manifestFile.getPath() + ".tmp");
+		try (PrintWriter out = new PrintWriter(new FileWriter(tempFile))) {
+			for (TestFile testFile : TestFile.readTestFiles(projectName))
+				out.print(testFile.getSize() + "," + testFile.getTestFilePath() + "\n");
+		}
+		Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the manifest of the project and checks that it lists the test files of
+	 * the current inputPaths file
+	 *
+	 * @throws IOException
+	 *             if there is no manifest, or the inputPaths file changed since
+	 *             --prepare
+	 */
+	private static Manifest readManifest(String projectName, List<TestFile> testFiles) throws IOException {
+		File manifestFile = getManifestFile(projectName);
+		if (!manifestFile.isFile())
+			throw new IOException("Missing " + manifestFile + ", run --prepare first");
+		List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+		if (lines.size() != testFiles.size())
+			throw new IOException(
+					manifestFile + " does not match inputPaths/" + projectName + ".csv, run --prepare again");
+		long[] sizes = new long[lines.size()];
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			int comma = line.indexOf(',');
+			if (comma < 0 || !line.substring(comma + 1).equals(testFiles.get(i).getTestFilePath()))
+				throw new IOException(manifestFile + " does not match inputPaths/" + projectName
+						+ ".csv at row " + i + ", run --prepare again");
+			sizes[i] = Long.parseLong(line.substring(0, comma));
+		}
+
+		Hasher hasher = Hashing.sha256().newHasher();
+		for (File file : new File[] { new File("inputPaths/" + projectName + ".csv"), manifestFile }) {
+			byte[] content = Files.readAllBytes(file.toPath());
+			hasher.putInt(content.length).putBytes(content);
+		}
+		return new Manifest(sizes, hasher.hash().toString());
+	}
+
+	/**
+	 * Assigns every row of the project's inputPaths file to a shard
+	 *
+	 * @param sizes
+	 *            the size of each row, as recorded in the manifest
+	 * @return the shard, from 0 to shardCount - 1, of each row
+	 */
+	public static int[] partition(List<TestFile> testFiles, long[] sizes, int shardCount) {
+		long[] hashes = new long[testFiles.size()];
+		List<Integer> rows = new ArrayList<>();
+		for (int i = 0; i < testFiles.size(); i++) {
+			TestFile testFile = testFiles.get(i);
+			hashes[i] = Hashing.murmur3_128().hashString(testFile.getTestFilePath(), StandardCharsets.UTF_8)
+					.asLong();
+			rows.add(i);
+		}
+		// largest first; equal sizes in hash order, and the same test file listed twice in
+		// input order
+		rows.sort(Comparator.<Integer>comparingLong(row -> -sizes[row]).thenComparingLong(row -> hashes[row])
+				.thenComparingInt(row -> row));
+
+		int[] shards = new int[testFiles.size()];
+		long[] loads = new long[shardCount];
+		for (int row : rows) {
+			int lightest = 0;
+			for (int shard = 1; shard < shardCount; shard++) {
+				if (loads[shard] < loads[lightest])
+					lightest = shard;
+			}
+			shards[row] = lightest;
+			loads[lightest] += Math.max(1, sizes[row]);
+		}
+		return shards;
+	}
+
+	/**
+	 * Analyzes the rows of the project that belong to the shard. Every row of the
+	 * part starts with the position of its test file in the inputPaths file, and
+	 * the rows of each test file follow a line with only that position.
+	 */
+	private static void runShard(String projectName, int shardIndex, int shardCount,
+			TestSmellDetector testSmellDetector, SmellPipeline smellPipeline) throws IOException {
+		List<TestFile> testFiles = TestFile.readTestFiles(projectName);
+		Manifest manifest = readManifest(projectName, testFiles);
+		int[] shards = partition(testFiles, manifest.sizes, shardCount);
+		int[] inputRows = IntStream.range(0, testFiles.size()).filter(row -> shards[row] == shardIndex - 1).toArray();
+		// each test file is taken out of the list as the pipeline takes it, so it is
+		// let go once it is written
+		Iterator<TestFile> shardFiles = Arrays.stream(inputRows).mapToObj(row -> testFiles.set(row, null)).iterator();
+
+		File shardFile = getShardFile(projectName, shardIndex, shardCount);
+		File tempFile = new File(shardFile.getPath() + ".tmp");
+		try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(tempFile,
+				ResultsWriter.DEFAULT_BUFFER_SIZE, ResultsWriter.DEFAULT_FLUSH_INTERVAL_MILLIS)) {
+			List<String> smellNames = testSmellDetector.getTestSmellNames();
+			List<String> columnNames = testSmellDetector.getTestSmellNames();
+			columnNames.add(0, "Test Methods");
+			columnNames.add(0, getInputRowColumn(manifest));
+			resultsWriter.writeColumnName(columnNames);
+
+			// the pipeline hands the files back in the order of shardFiles
+			int[] written = { 0 };
+			smellPipeline.run(shardFiles, file -> {
+				List<String> inputRow = Collections.singletonList(String.valueOf(inputRows[written[0]++]));
+				resultsWriter.writeLine(inputRow);
+				resultsWriter.writeTestFile(inputRow, file, smellNames);
+			});
+		}
+		Files.move(tempFile.toPath(), shardFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		System.out.println("Analyzed " + inputRows.length + " of " + testFiles.size() + " test files of "
+				+ projectName + " into " + shardFile);
+	}
+
+	/**
+	 * Merges the parts of the project by input row. Each part is sorted by input
+	 * row already, so the parts are merged while they are read.
+	 *
+	 * @throws IOException
+	 *             if a part is missing or of another --prepare, or the rows of the
+	 *             inputPaths file are not each in exactly one part
+	 */
+	private static void merge(String projectName, int shardCount) throws IOException {
+		List<TestFile> testFiles = TestFile.readTestFiles(projectName);
+		Manifest manifest = readManifest(projectName, testFiles);
+		List<String> missing = new ArrayList<>();
+		for (int i = 1; i <= shardCount; i++) {
+			if (!getShardFile(projectName, i, shardCount).isFile())
+				missing.add(getShardFile(projectName, i, shardCount).getPath());
+		}
+		if (!missing.isEmpty())
+			throw new IOException("Missing parts of " + projectName + ": " + String.join(", ", missing));
+
+		List<BufferedReader> readers = new ArrayList<>();
+		try (ResultsWriter resultsWriter = ResultsWriter.createResultsWriter(projectName)) {
+			String header = null;
+			PriorityQueue<ShardRow> rows = new PriorityQueue<>();
+			for (int i = 1; i <= shardCount; i++) {
+				BufferedReader reader = new BufferedReader(new FileReader(getShardFile(projectName, i, shardCount)));
+				readers.add(reader);
+				String shardHeader = reader.readLine();
+				if (shardHeader == null || !shardHeader.startsWith(getInputRowColumn(manifest) + ","))
+					throw new IOException(getShardFile(projectName, i, shardCount)
+							+ " was not analyzed from the current inputPaths and manifest of " + projectName);
+				if (header == null)
+					header = shardHeader;
+				else if (!header.equals(shardHeader))
+					throw new IOException("The parts of " + projectName + " have different columns");
+				ShardRow.next(reader, rows);
+			}
+			resultsWriter.writeColumnName(getValues(header));
+
+			// the next input row; each must be marked once, and its rows follow the mark
+			long nextInputRow = 0;
+			ShardRow row;
+			while ((row = rows.poll()) != null) {
+				if (row.isMark()) {
+					if (row.inputRow != nextInputRow)
+						throw new IOException(describeGap(projectName, nextInputRow, row.inputRow));
+					nextInputRow++;
+				} else if (row.inputRow != nextInputRow - 1) {
+					throw new IOException(
+							"Row " + row.inputRow + " of " + projectName + " has test methods but no mark");
+				} else {
+					resultsWriter.writeLine(getValues(row.line));
+				}
+				ShardRow.next(row.reader, rows);
+			}
+			if (nextInputRow != testFiles.size())
+				throw new IOException(describeGap(projectName, nextInputRow, testFiles.size()));
+		} finally {
+			for (BufferedReader reader : readers)
+				reader.close();
+		}
+		System.out.println("Merged " + shardCount + " parts of " + projectName);
+	}
+
+	/**
+	 * Describes that the input row expected next is missing, or is in more than
+	 * one part
+	 */
+	private static String describeGap(String projectName, long expected, long found) {
+		if (found < expected)
+			return "Row " + found + " of " + projectName + " is in more than one part";
+		if (found == expected + 1)
+			return "Row " + expected + " of " + projectName + " is in no part";
+		return "Rows " + expected + " to " + (found - 1) + " of " + projectName + " are in no part";
+	}
+
+	/**
+	 * The values of a line of a part, without the input row
+	 */
+	private static List<String> getValues(String line) {
+		return Arrays.asList(line.substring(line.indexOf(',') + 1).split(",", -1));
+	}
+
+	/**
+	 * The sizes recorded by --prepare and the hash that identifies them together
+	 * with the inputPaths file
+	 */
+	private static final class Manifest {
+		private final long[] sizes;
+		private final String hash;
+
+		private Manifest(long[] sizes, String hash) {
+			this.sizes = sizes;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * The next line of a part. Rows of the same test file have the same input
+	 * row; they are kept in order as they come from the same part.
+	 */
+	private static final class ShardRow implements Comparable<ShardRow> {
+		private final BufferedReader reader;
+		private final String line;
+		private final long inputRow;
+
+		private ShardRow(BufferedReader reader, String line) throws IOException {
+			this.reader = reader;
+			this.line = line;
+			int comma = line.indexOf(',');
+			try {
+				this.inputRow = Long.parseLong(comma < 0 ? line : line.substring(0, comma));
+			} catch (NumberFormatException e) {
+				throw new IOException("Not a line of a part: " + line);
+			}
+		}
+
+		/**
+		 * Checks if the line marks a test file, rather than being one of its rows
+		 */
+		private boolean isMark() {
+			return line.indexOf(',') < 0;
+		}
+
+		private static void next(BufferedReader reader, PriorityQueue<ShardRow> rows) throws IOException {
+			String line = reader.readLine();
+			if (line != null)
+				rows.add(new ShardRow(reader, line));
+		}
+
+		@Override
+		public int compareTo(ShardRow other) {
+			return Long.compare(inputRow, other.inputRow);
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package testsmell;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Analyzes a stream of test files in stages: reading the files, parsing them,
+ * analyzing them, and handing the results to a single writer in input order.
+ * Each stage has its own threads, so reading and writing overlap with parsing
+ * and analysis.
+ * <p>
+ * At most <code>maxInFlight</code> test files, together at most
+ * <code>maxInFlightBytes</code> large (test and production file), are between
+ * being taken from the input and being written; a single larger file is let
+ * through alone. When the window is full, the input is not read further until
+ * the oldest file is written, so the queues of the stages and the files waiting
+ * for their turn to be written stay bounded however many test files there are.
+ */
+public class SmellPipeline {
+
+	public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 16 * 1024 * 1024;
+
+	/**
+	 * Receives the analyzed test files, one at a time and in input order
+	 */
+	public interface ResultHandler {
+		void handle(TestFile testFile) throws IOException;
+	}
+
+	private TestSmellDetector testSmellDetector;
+	private int readers;
+	private int parsers;
+	private int analyzers;
+	private int maxInFlight;
+	private long maxInFlightBytes;
+
+	private SmellPipeline(TestSmellDetector testSmellDetector, int readers, int parsers, int analyzers,
+			int maxInFlight, long maxInFlightBytes) {
+		if (readers < 1 || parsers < 1 || analyzers < 1 || maxInFlight < 1 || maxInFlightBytes < 1)
+			throw new IllegalArgumentException("Every stage needs a thread and the window a file");
+		this.testSmellDetector = testSmellDetector;
+		this.readers = readers;
+		this.parsers = parsers;
+		this.analyzers = analyzers;
+		this.maxInFlight = maxInFlight;
+		this.maxInFlightBytes = maxInFlightBytes;
+	}
+
+	/**
+	 * Factory method that provides a new instance of the SmellPipeline
+	 *
+	 * @param readers
+	 *            the number of threads reading files
+	 * @param parsers
+	 *            the number of threads parsing files
+	 * @param analyzers
+	 *            the number of threads analyzing parsed files
+	 * @param maxInFlight
+	 *            the maximum number of test files taken from the input but not
+	 *            yet written
+	 * @return new SmellPipeline instance
+	 */
+	public static SmellPipeline createSmellPipeline(TestSmellDetector testSmellDetector, int readers, int parsers,
+			int analyzers, int maxInFlight) {
+		return createSmellPipeline(testSmellDetector, readers, parsers, analyzers, maxInFlight, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the SmellPipeline that also
+	 * bounds the size of the files in flight
+	 *
+	 * @param maxInFlightBytes
+	 *            the maximum total size of the test and production files taken
+	 *            from the input but not yet written
+	 * @return new SmellPipeline instance
+	 */
+	public static SmellPipeline createSmellPipeline(TestSmellDetector testSmellDetector, int readers, int parsers,
+			int analyzers, int maxInFlight, long maxInFlightBytes) {
+		return new SmellPipeline(testSmellDetector, readers, parsers, analyzers, maxInFlight, maxInFlightBytes);
+	}
+
+	/**
+	 * Analyzes all test files of the input and passes them to the handler in
+	 * input order. If a test file cannot be analyzed or the handler fails, no
+	 * further test files are handled, and the first failure is thrown once the
+	 * test files in flight are done.
+	 *
+	 * @throws IOException
+	 */
+	public void run(Iterator<TestFile> testFiles, ResultHandler resultHandler) throws IOException {
+		Run run = new Run(resultHandler);
+		try {
+			long index = 0;
+			while (run.failure.get() == null && testFiles.hasNext()) {
+				run.window.acquire();
+				TestFile testFile = testFiles.next();
+				// sizes are only looked up when they are bounded
+				Item item = new Item(index++, maxInFlightBytes == Long.MAX_VALUE ? 0 : testFile.getSize(),
+						new TestSmellDetector.Job(testFile));
+				run.acquireBytes(item.size);
+				run.read(item);
+			}
+			// every file in flight gives back its permit once it is written or dropped
+			run.window.acquire(maxInFlight);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			run.failure.compareAndSet(null, new InterruptedIOException("Interrupted while analyzing test files"));
+		} finally {
+			run.shutdown();
+		}
+		rethrow(run.failure.get());
+	}
+
+	private static void rethrow(Throwable failure) throws IOException {
+		if (failure == null)
+			return;
+		if (failure instanceof IOException)
+			throw (IOException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		throw new IOException(failure);
+	}
+
+	/**
+	 * A test file on its way through the stages
+	 */
+	private static final class Item {
+		private final long index;
+		private final long size;
+		private final TestSmellDetector.Job job;
+
+		private Item(long index, long size, TestSmellDetector.Job job) {
+			this.index = index;
+			this.size = size;
+			this.job = job;
+		}
+	}
+
+	/**
+	 * The pools and the writer state of one run
+	 */
+	private class Run {
+		private final ResultHandler resultHandler;
+		private final Semaphore window = new Semaphore(maxInFlight);
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+		private final ExecutorService readPool = Executors.newFixedThreadPool(readers);
+		private final ExecutorService parsePool = Executors.newFixedThreadPool(parsers);
+		private final ExecutorService analyzePool = Executors.newFixedThreadPool(analyzers);
+		private final ExecutorService writePool = Executors.newSingleThreadExecutor();
+		// guarded by the run
+		private long inFlightBytes = 0;
+		// only touched by the writer thread
+		private final Map<Long, Item> finished = new TreeMap<>();
+		private long nextToWrite = 0;
+
+		private Run(ResultHandler resultHandler) {
+			this.resultHandler = resultHandler;
+		}
+
+		/**
+		 * Waits until the file fits into the bytes in flight, or nothing else is in
+		 * flight
+		 */
+		private synchronized void acquireBytes(long size) throws InterruptedException {
+			while (inFlightBytes > 0 && inFlightBytes + size > maxInFlightBytes)
+				wait();
+			inFlightBytes += size;
+		}
+
+		private synchronized void releaseBytes(long size) {
+			inFlightBytes -= size;
+			notifyAll();
+		}
+
+		private void read(Item item) {
+			readPool.execute(() -> {
+				try {
+					if (failure.get() == null && !testSmellDetector.read(item.job)) {
+						parse(item);
+						return;
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+				write(item);
+			});
+		}
+
+		private void parse(Item item) {
+			parsePool.execute(() -> {
+				try {
+					if (failure.get() == null) {
+						testSmellDetector.parse(item.job);
+						analyze(item);
+						return;
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+				write(item);
+			});
+		}
+
+		private void analyze(Item item) {
+			analyzePool.execute(() -> {
+				try {
+					if (failure.get() == null)
+						testSmellDetector.analyze(item.job);
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+				write(item);
+			});
+		}
+
+		/**
+		 * Holds the job back until all jobs before it are written, then writes it
+		 * and the jobs after it that are already waiting. Once something failed,
+		 * jobs are dropped instead of written.
+		 */
+		private void write(Item item) {
+			writePool.execute(() -> {
+				finished.put(item.index, item);
+				Item next;
+				while ((next = finished.remove(nextToWrite)) != null) {
+					nextToWrite++;
+					try {
+						if (failure.get() == null)
+							resultHandler.handle(next.job.getTestFile());
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						releaseBytes(next.size);
+						window.release();
+					}
+				}
+			});
+		}
+
+		/**
+		 * Shuts the stages down in order, each once the stage feeding it is done, so
+		 * no stage is handed a job after it stopped
+		 */
+		private void shutdown() {
+			boolean interrupted = false;
+			for (ExecutorService pool : new ExecutorService[] { readPool, parsePool, analyzePool, writePool }) {
+				pool.shutdown();
+				while (true) {
+					try {
+						pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+}
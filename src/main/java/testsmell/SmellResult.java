@@ -0,0 +1,45 @@
+package testsmell;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of analyzing one test file for one smell, i.e. the analyzed test
+ * methods and whether each of them has the smell. Results are immutable.
+ */
+public final class SmellResult {
+
+	private final String smellName;
+	private final List<TestMethod> smellyElements;
+
+	public SmellResult(String smellName, List<TestMethod> smellyElements) {
+		this.smellName = smellName;
+		this.smellyElements = Collections.unmodifiableList(new ArrayList<>(smellyElements));
+	}
+
+	public String getSmellName() {
+		return smellName;
+	}
+
+	/**
+	 * Returns true if any of the elements has a smell
+	 */
+	public boolean getHasSmell() {
+		return smellyElements.stream().anyMatch(x -> x.getHasSmell());
+	}
+
+	/**
+	 * Returns the number of elements that have the smell
+	 */
+	public int getSmellCount() {
+		return (int) smellyElements.stream().filter(x -> x.getHasSmell()).count();
+	}
+
+	/**
+	 * Returns the set of analyzed elements (i.e. test methods)
+	 */
+	public List<TestMethod> getSmellyElements() {
+		return smellyElements;
+	}
+}
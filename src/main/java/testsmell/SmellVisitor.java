@@ -0,0 +1,163 @@
+package testsmell;
+
+import java.util.List;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ConditionalExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.CatchClause;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.ForeachStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.SwitchStmt;
+import com.github.javaparser.ast.stmt.ThrowStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+
+/**
+ * Callbacks through which a smell receives the nodes of the test file from a
+ * {@link FusedVisitor}.
+ * <p>
+ * Each <code>visit</code> method is called before the children of the node are
+ * visited and each <code>endVisit</code> method after them. When
+ * <code>visit</code> returns false, the children of the node and the matching
+ * <code>endVisit</code> are skipped for this visitor only; the other visitors of
+ * the walk still see them. By default every node is descended into and nothing
+ * is done.
+ * <p>
+ * A visitor analyzes a single test file and holds the state of that analysis,
+ * so the smell that creates it can be shared by all files.
+ */
+public abstract class SmellVisitor {
+
+	/**
+	 * Returns the set of analyzed elements (i.e. test methods), once the walk is
+	 * over
+	 */
+	public abstract List<TestMethod> getSmellyElements();
+
+	public boolean visit(CompilationUnit n) {
+		return true;
+	}
+
+	public void endVisit(CompilationUnit n) {
+	}
+
+	public boolean visit(ClassOrInterfaceDeclaration n) {
+		return true;
+	}
+
+	public void endVisit(ClassOrInterfaceDeclaration n) {
+	}
+
+	public boolean visit(FieldDeclaration n) {
+		return true;
+	}
+
+	public void endVisit(FieldDeclaration n) {
+	}
+
+	public boolean visit(MethodDeclaration n) {
+		return true;
+	}
+
+	public void endVisit(MethodDeclaration n) {
+	}
+
+	public boolean visit(VariableDeclarator n) {
+		return true;
+	}
+
+	public void endVisit(VariableDeclarator n) {
+	}
+
+	public boolean visit(VariableDeclarationExpr n) {
+		return true;
+	}
+
+	public void endVisit(VariableDeclarationExpr n) {
+	}
+
+	public boolean visit(MethodCallExpr n) {
+		return true;
+	}
+
+	public void endVisit(MethodCallExpr n) {
+	}
+
+	public boolean visit(NameExpr n) {
+		return true;
+	}
+
+	public void endVisit(NameExpr n) {
+	}
+
+	public boolean visit(ObjectCreationExpr n) {
+		return true;
+	}
+
+	public void endVisit(ObjectCreationExpr n) {
+	}
+
+	public boolean visit(ConditionalExpr n) {
+		return true;
+	}
+
+	public void endVisit(ConditionalExpr n) {
+	}
+
+	public boolean visit(IfStmt n) {
+		return true;
+	}
+
+	public void endVisit(IfStmt n) {
+	}
+
+	public boolean visit(SwitchStmt n) {
+		return true;
+	}
+
+	public void endVisit(SwitchStmt n) {
+	}
+
+	public boolean visit(ForStmt n) {
+		return true;
+	}
+
+	public void endVisit(ForStmt n) {
+	}
+
+	public boolean visit(ForeachStmt n) {
+		return true;
+	}
+
+	public void endVisit(ForeachStmt n) {
+	}
+
+	public boolean visit(WhileStmt n) {
+		return true;
+	}
+
+	public void endVisit(WhileStmt n) {
+	}
+
+	public boolean visit(ThrowStmt n) {
+		return true;
+	}
+
+	public void endVisit(ThrowStmt n) {
+	}
+
+	public boolean visit(CatchClause n) {
+		return true;
+	}
+
+	public void endVisit(CatchClause n) {
+	}
+}
@@ -0,0 +1,133 @@
+package testsmell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+/**
+ * Reads and parses source files. A file is read through a channel that is
+ * closed before returning, into a buffer of the size of the file, so most files
+ * take a single read. Files are not memory-mapped: a mapped file that shrinks or
+ * goes away (e.g. on NFS) fails the reading thread with SIGBUS or an
+ * InternalError instead of an IOException.
+ * <p>
+ * The content is decoded once, with its charset detected from it: a byte order
+ * mark selects UTF-8 or UTF-16, content without one is decoded as UTF-8 if it is
+ * valid UTF-8, and as ISO-8859-1 otherwise (e.g. a file saved as Latin-1 or
+ * Windows-1252), so no byte is replaced. The parser is fed the decoded text.
+ */
+public class SourceLoader {
+
+	/**
+	 * Reads the whole file
+	 *
+	 * @throws IOException
+	 */
+	public static byte[] read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8)
+				throw new IOException(path + " is too large to be read");
+
+			// the size is only a hint, as the file may change while it is read
+			ByteBuffer buffer = ByteBuffer.wrap(new byte[(int) size + 1]);
+			while (channel.read(buffer) >= 0) {
+				if (!buffer.hasRemaining()) {
+					int position = buffer.position();
+					buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.capacity() * 2));
+					buffer.position(position);
+				}
+			}
+			return Arrays.copyOf(buffer.array(), buffer.position());
+		}
+	}
+
+	/**
+	 * Decodes the content in the charset detected from it, without its byte order
+	 * mark
+	 */
+	public static String decode(byte[] content) {
+		int bomLength = getBomLength(content);
+		if (bomLength > 0)
+			return new String(content, bomLength, content.length - bomLength, detectCharset(content));
+
+		boolean ascii = true;
+		for (byte b : content) {
+			if (b < 0) {
+				ascii = false;
+				break;
+			}
+		}
+		if (ascii)
+			return new String(content, StandardCharsets.ISO_8859_1);
+
+		try {
+			return decodeUtf8(content).toString();
+		} catch (CharacterCodingException e) {
+			return new String(content, StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	/**
+	 * Returns the charset of the content: the one of its byte order mark, else
+	 * UTF-8 if it is valid UTF-8, else ISO-8859-1
+	 */
+	public static Charset detectCharset(byte[] content) {
+		if (startsWith(content, 0xEF, 0xBB, 0xBF))
+			return StandardCharsets.UTF_8;
+		if (startsWith(content, 0xFE, 0xFF))
+			return StandardCharsets.UTF_16BE;
+		if (startsWith(content, 0xFF, 0xFE))
+			return StandardCharsets.UTF_16LE;
+		try {
+			decodeUtf8(content);
+			return StandardCharsets.UTF_8;
+		} catch (CharacterCodingException e) {
+			return StandardCharsets.ISO_8859_1;
+		}
+	}
+
+	/**
+	 * Parses the content as a compilation unit
+	 */
+	public static CompilationUnit parse(byte[] content) {
+		return JavaParser.parse(decode(content));
+	}
+
+	/**
+	 * Decodes the content as UTF-8, failing on bytes that are not valid UTF-8
+	 */
+	private static CharBuffer decodeUtf8(byte[] content) throws CharacterCodingException {
+		return StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(content));
+	}
+
+	private static int getBomLength(byte[] content) {
+		if (startsWith(content, 0xEF, 0xBB, 0xBF))
+			return 3;
+		if (startsWith(content, 0xFE, 0xFF) || startsWith(content, 0xFF, 0xFE))
+			return 2;
+		return 0;
+	}
+
+	private static boolean startsWith(byte[] content, int... prefix) {
+		if (content.length < prefix.length)
+			return false;
+		for (int i = 0; i < prefix.length; i++) {
+			if ((content[i] & 0xFF) != prefix[i])
+				return false;
+		}
+		return true;
+	}
+}
@@ -1,19 +1,33 @@
 package testsmell;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * A test file and the smells found in it. The smelly methods are kept as a
+ * matrix: every method name is interned to an id, every smell to a column, and
+ * each method has a bitset of the columns of its smells.
+ */
 public class TestFile {
 	private String app, testFilePath, productionFilePath, testFileName;
-	private List<AbstractSmell> testSmells;
-	private Map<String, List<String>> smellsMethods;
-	private Set<String> testMethods;
+	private List<SmellResult> testSmells;
+	private Map<String, Integer> methodIds;
+	private List<String> methodNames;
+	private List<BitSet> methodSmells;
+	private BitSet testMethodIds;
+	private Map<String, Integer> smellColumns;
+	private long size = -1;
 
 	public String getApp() {
 		return app;
@@ -27,7 +41,11 @@ public class TestFile {
 		return testFilePath;
 	}
 
-	public List<AbstractSmell> getTestSmells() {
+	/**
+	 * Returns the results of the smells the file was analyzed for; empty once the
+	 * file is compacted
+	 */
+	public List<SmellResult> getTestSmells() {
 		return testSmells;
 	}
 
@@ -35,42 +53,213 @@ public class TestFile {
 		return ((productionFilePath != null && !productionFilePath.isEmpty()));
 	}
 
+	/**
+	 * Returns the size in bytes of the test file and its production file, as
+	 * found on disk when first asked for; a missing file counts as empty
+	 */
+	public long getSize() {
+		if (size < 0) {
+			long total = 0;
+			if (!StringUtils.isEmpty(testFilePath))
+				total += new File(testFilePath).length();
+			if (getHasProductionFile())
+				total += new File(productionFilePath).length();
+			size = total;
+		}
+		return size;
+	}
+
 	public TestFile(String app, String testFilePath, String productionFilePath) {
 		this.app = app;
 		this.testFilePath = testFilePath;
 		this.productionFilePath = productionFilePath;
 		this.testSmells = new ArrayList<>();
-		this.smellsMethods = new HashMap<>();
-		this.testMethods = new HashSet<>();
+		this.methodIds = new HashMap<>();
+		this.methodNames = new ArrayList<>();
+		this.methodSmells = new ArrayList<>();
+		this.testMethodIds = new BitSet();
+		this.smellColumns = new LinkedHashMap<>();
 		this.testFileName = (this.testFilePath.split("/")[this.testFilePath.split("/").length - 1]);
 		if (this.testFileName.split(".java").length != 0)
 			this.testFileName = this.testFileName.split(".java")[0];
 	}
 
-	public void addSmell(AbstractSmell smell) {
+	/**
+	 * Reads the test files of the project from its inputPaths file
+	 *
+	 * @throws IOException
+	 */
+	public static List<TestFile> readTestFiles(String projectName) throws IOException {
+		List<TestFile> testFiles = new ArrayList<>();
+		try (BufferedReader in = openTestFiles(projectName)) {
+			String str;
+			while ((str = in.readLine()) != null)
+				testFiles.add(createTestFile(str));
+		}
+		return testFiles;
+	}
+
+	/**
+	 * Opens the inputPaths file of the project, to read its test files one line
+	 * at a time with {@link #createTestFile(String)}
+	 *
+	 * @throws IOException
+	 */
+	public static BufferedReader openTestFiles(String projectName) throws IOException {
+		return new BufferedReader(new FileReader("inputPaths/" + projectName + ".csv"));
+	}
+
+	/**
+	 * Creates the test file of a line of an inputPaths file
+	 */
+	public static TestFile createTestFile(String str) {
+		// use comma as separator
+		String[] lineItem = str.split(",");
+
+		// check if the test file has an associated production file
+		if (lineItem.length == 2)
+			return new TestFile(lineItem[0], lineItem[1], "");
+		return new TestFile(lineItem[0], lineItem[1], lineItem[2]);
+	}
+
+	public void addSmell(SmellResult smell) {
 		testSmells.add(smell);
 	}
 
+	/**
+	 * Drops the per-smell results, with their test methods and data, and keeps
+	 * only the smells of each method, which is all the rows and the cache need. A
+	 * file whose results were loaded from the cache has no per-smell results
+	 * either.
+	 */
+	public void compact() {
+		testSmells = new ArrayList<>();
+		methodIds = null;
+		methodNames = new ArrayList<>(methodNames);
+		methodSmells = new ArrayList<>(methodSmells);
+	}
+
+	/**
+	 * Returns the names of the test methods, in the order of their rows
+	 */
 	public Set<String> getTestMethods() {
-		return this.testMethods;
+		return getRowIds().keySet();
+	}
+
+	/**
+	 * Returns the ids of the test methods by name, in the order of their rows:
+	 * that of a hash set of the names added in the order they were found, which
+	 * is the order the rows have always been written in
+	 */
+	private Map<String, Integer> getRowIds() {
+		Map<String, Integer> hashed = new HashMap<>();
+		for (int id = testMethodIds.nextSetBit(0); id >= 0; id = testMethodIds.nextSetBit(id + 1))
+			hashed.put(methodNames.get(id), id);
+		return new LinkedHashMap<>(hashed);
 	}
 
 	public void addTest(TestMethod m) {
-		testMethods.add(testFileName + "." + m.getElementName());
+		addTestMethod(testFileName + "." + m.getElementName());
+	}
+
+	void addTestMethod(String methodName) {
+		testMethodIds.set(getMethodId(methodName));
 	}
 
 	public void addSmellMethod(String smell, TestMethod testMethod) {
-		String methodName = testFileName + "." + testMethod.getElementName();
-		if (smellsMethods.containsKey(smell)) {
-			smellsMethods.get(smell).add(methodName);
-		} else {
-			smellsMethods.put(smell, new ArrayList<>());
-			smellsMethods.get(smell).add(methodName);
+		addSmellMethod(smell, testFileName + "." + testMethod.getElementName());
+	}
+
+	void addSmellMethod(String smell, String methodName) {
+		Integer column = smellColumns.get(smell);
+		if (column == null) {
+			column = smellColumns.size();
+			smellColumns.put(smell, column);
+		}
+		methodSmells.get(getMethodId(methodName)).set(column);
+	}
+
+	/**
+	 * Interns the method name
+	 */
+	private int getMethodId(String methodName) {
+		if (methodIds == null) {
+			// dropped by compact()
+			methodIds = new HashMap<>();
+			for (int id = 0; id < methodNames.size(); id++)
+				methodIds.put(methodNames.get(id), id);
+		}
+		Integer id = methodIds.get(methodName);
+		if (id == null) {
+			id = methodNames.size();
+			methodIds.put(methodName, id);
+			methodNames.add(methodName);
+			methodSmells.add(new BitSet());
 		}
+		return id;
 	}
 
+	/**
+	 * Returns the smelly methods of each smell that was found in the file
+	 */
 	public Map<String, List<String>> getSmellsMethods() {
-		return this.smellsMethods;
+		Map<String, List<String>> smellsMethods = new LinkedHashMap<>();
+		for (Map.Entry<String, Integer> smellColumn : smellColumns.entrySet()) {
+			List<String> methods = new ArrayList<>();
+			for (int id = 0; id < methodNames.size(); id++) {
+				if (methodSmells.get(id).get(smellColumn.getValue()))
+					methods.add(methodNames.get(id));
+			}
+			smellsMethods.put(smellColumn.getKey(), methods);
+		}
+		return smellsMethods;
+	}
+
+	/**
+	 * Returns the column of each of the given smells in the rows, or -1 for a smell
+	 * that was not found in the file
+	 */
+	public int[] getSmellColumns(List<String> smellNames) {
+		int[] columns = new int[smellNames.size()];
+		for (int i = 0; i < columns.length; i++)
+			columns[i] = smellColumns.getOrDefault(smellNames.get(i), -1);
+		return columns;
+	}
+
+	/**
+	 * Returns a row for each test method, in the order of
+	 * {@link #getTestMethods()}
+	 */
+	public List<Row> getRows() {
+		List<Row> rows = new ArrayList<>();
+		for (Map.Entry<String, Integer> rowId : getRowIds().entrySet())
+			rows.add(new Row(rowId.getKey(), methodSmells.get(rowId.getValue())));
+		return rows;
+	}
+
+	/**
+	 * The smells of a single test method
+	 */
+	public static final class Row {
+		private final String testMethod;
+		private final BitSet smells;
+
+		private Row(String testMethod, BitSet smells) {
+			this.testMethod = testMethod;
+			this.smells = smells;
+		}
+
+		public String getTestMethod() {
+			return testMethod;
+		}
+
+		/**
+		 * Checks if the method has the smell of the given column, see
+		 * {@link TestFile#getSmellColumns(List)}
+		 */
+		public boolean hasSmell(int smellColumn) {
+			return smells.get(smellColumn);
+		}
 	}
 
 	public String getTagName() {
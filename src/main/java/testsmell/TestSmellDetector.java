@@ -1,17 +1,25 @@
 package testsmell;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 
+import testsmell.jfr.CacheHitEvent;
+import testsmell.jfr.FileParsedEvent;
+import testsmell.jfr.SmellAnalyzedEvent;
 import testsmell.smell.AssertionRoulette;
 import testsmell.smell.ConditionalTestLogic;
 import testsmell.smell.DuplicateAssert;
@@ -31,18 +39,38 @@ import testsmell.smell.VerboseTest;
 
 public class TestSmellDetector {
 
+	/**
+	 * Identifies the detection logic in the keys of the {@link ResultCache}. It
+	 * must be changed whenever a smell changes what it detects.
+	 */
+	public static final String VERSION = "1";
+
 	private List<AbstractSmell> testSmells;
+	private ResultCache resultCache;
+	private ProductionFileCache productionFileCache;
+	private Instrumentation instrumentation;
+	private boolean compactResults;
 
 	/**
 	 * Instantiates the various test smell analyzer classes and loads the objects
 	 * into an List
 	 */
 	public TestSmellDetector() {
-		initializeSmells();
+		testSmells = initializeSmells();
+		// e.g. -Dtestsmell.productionCacheBytes=268435456
+		productionFileCache = ProductionFileCache.createProductionFileCache(
+				Long.getLong("testsmell.productionCacheBytes", ProductionFileCache.DEFAULT_MAX_BYTES));
+		// analyzed files only keep the smells of their methods, so holding many of
+		// them costs little, e.g. -Dtestsmell.compactResults=true
+		compactResults = Boolean.getBoolean("testsmell.compactResults");
 	}
 
-	private void initializeSmells() {
-		testSmells = new ArrayList<>();
+	/**
+	 * Creates the smell analyzers. The analyzers keep no per-file state, so these
+	 * instances serve all analyzed files.
+	 */
+	private List<AbstractSmell> initializeSmells() {
+		List<AbstractSmell> testSmells = new ArrayList<>();
 		testSmells.add(new AssertionRoulette());
 		testSmells.add(new ConditionalTestLogic());
 		testSmells.add(new EmptyTest());
@@ -69,6 +97,7 @@ public class TestSmellDetector {
 		// testSmells.add(new DependentTest());
 		// testSmells.add(new IgnoredTest());
 
+		return testSmells;
 	}
 
 	/**
@@ -80,6 +109,41 @@ public class TestSmellDetector {
 		return new TestSmellDetector();
 	}
 
+	/**
+	 * Factory method that provides a new instance of the TestSmellDetector that
+	 * skips the files whose results are in the given cache
+	 *
+	 * @return new TestSmellDetector instance
+	 */
+	public static TestSmellDetector createTestSmellDetector(ResultCache resultCache) {
+		return createTestSmellDetector(resultCache, null);
+	}
+
+	/**
+	 * Factory method that provides a new instance of the TestSmellDetector that
+	 * skips the files whose results are in the given cache and records the cost
+	 * of every phase and smell into the given instrumentation. With an
+	 * instrumentation, every smell walks the test file on its own so that its
+	 * cost can be told apart, which makes the analysis slower.
+	 *
+	 * @param resultCache
+	 *            the cache, or null to analyze every file
+	 * @param instrumentation
+	 *            the instrumentation, or null to record nothing
+	 * @return new TestSmellDetector instance
+	 */
+	public static TestSmellDetector createTestSmellDetector(ResultCache resultCache,
+			Instrumentation instrumentation) {
+		TestSmellDetector testSmellDetector = new TestSmellDetector();
+		testSmellDetector.resultCache = resultCache;
+		testSmellDetector.instrumentation = instrumentation;
+		return testSmellDetector;
+	}
+
+	public Instrumentation getInstrumentation() {
+		return instrumentation;
+	}
+
 	/**
 	 * Provides the names of the smells that are being checked for in the code
 	 *
@@ -91,36 +155,239 @@ public class TestSmellDetector {
 
 	/**
 	 * Loads the java source code file into an AST and then analyzes it for the
-	 * existence of the different types of test smells
+	 * existence of the different types of test smells. If the detector has a
+	 * cache and neither the test file nor the production file changed since they
+	 * were last analyzed, the cached results are used instead.
 	 */
 	public TestFile detectSmells(TestFile testFile) throws IOException {
-		CompilationUnit testFileCompilationUnit = null, productionFileCompilationUnit = null;
-		FileInputStream testFileInputStream, productionFileInputStream;
+		Job job = new Job(testFile);
+		if (!read(job)) {
+			parse(job);
+			analyze(job);
+		}
+		return testFile;
+	}
+
+	/**
+	 * Reads the files of the job and, if the detector has a cache, looks up their
+	 * results
+	 *
+	 * @return true if the results were taken from the cache, and the job is done
+	 */
+	boolean read(Job job) throws IOException {
+		TestFile testFile = job.testFile;
+		Instrumentation.Sample start = instrumentation == null ? null : instrumentation.start();
+
+		if (!StringUtils.isEmpty(testFile.getTestFilePath()))
+			job.testFileContent = SourceLoader.read(Paths.get(testFile.getTestFilePath()));
+
+		// the production file is only read up front when it is part of the cache key
+		if (resultCache != null && !StringUtils.isEmpty(testFile.getProductionFilePath()))
+			job.productionFileContent = SourceLoader.read(Paths.get(testFile.getProductionFilePath()));
+
+		if (instrumentation != null)
+			instrumentation.record(Instrumentation.Phase.READ, testFile.getTestFilePath(), start);
+
+		if (resultCache != null) {
+			job.cacheKey = resultCache.getKey(VERSION + ":" + String.join(",", getTestSmellNames()),
+					testFile.getTestFileName(), job.testFileContent, job.productionFileContent);
+			CacheHitEvent cacheHitEvent = new CacheHitEvent();
+			cacheHitEvent.begin();
+			if (resultCache.load(job.cacheKey, testFile)) {
+				cacheHitEvent.record(testFile.getTestFilePath(), "result");
+				job.testFileContent = job.productionFileContent = null;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Parses the test file of the job, and takes its production file from the
+	 * cache of parsed production files
+	 */
+	void parse(Job job) throws IOException {
+		TestFile testFile = job.testFile;
+		Instrumentation.Sample start = instrumentation == null ? null : instrumentation.start();
+
+		if (job.testFileContent != null) {
+			FileParsedEvent fileParsedEvent = new FileParsedEvent();
+			fileParsedEvent.begin();
+			job.testFileCompilationUnit = SourceLoader.parse(job.testFileContent);
+			fileParsedEvent.record(testFile.getTestFilePath(), "test", job.testFileContent.length,
+					job.testFileCompilationUnit);
+		}
+
+		if (!StringUtils.isEmpty(testFile.getProductionFilePath()))
+			job.productionFileCompilationUnit = productionFileCache
+					.getCompilationUnit(testFile.getProductionFilePath(), job.productionFileContent);
+		job.testFileContent = job.productionFileContent = null;
+
+		if (instrumentation != null)
+			instrumentation.record(Instrumentation.Phase.PARSE, testFile.getTestFilePath(), start);
+	}
 
-		if (!StringUtils.isEmpty(testFile.getTestFilePath())) {
-			testFileInputStream = new FileInputStream(testFile.getTestFilePath());
-			testFileCompilationUnit = JavaParser.parse(testFileInputStream);
+	/**
+	 * Analyzes the parsed files of the job and stores the results in the cache
+	 */
+	void analyze(Job job) {
+		TestFile testFile = job.testFile;
+		Instrumentation.Sample start = instrumentation == null ? null : instrumentation.start();
+
+		detectSmells(testFile, job.testFileCompilationUnit, job.productionFileCompilationUnit);
+		job.testFileCompilationUnit = job.productionFileCompilationUnit = null;
+
+		if (instrumentation != null)
+			instrumentation.record(Instrumentation.Phase.ANALYZE, testFile.getTestFilePath(), start);
+
+		if (resultCache != null)
+			resultCache.store(job.cacheKey, testFile);
+	}
+
+	/**
+	 * The state of a test file between the steps of its analysis. A step drops
+	 * what later steps no longer need.
+	 */
+	static final class Job {
+		private final TestFile testFile;
+		private byte[] testFileContent;
+		private byte[] productionFileContent;
+		private String cacheKey;
+		private CompilationUnit testFileCompilationUnit;
+		private CompilationUnit productionFileCompilationUnit;
+
+		Job(TestFile testFile) {
+			this.testFile = testFile;
 		}
 
-		if (!StringUtils.isEmpty(testFile.getProductionFilePath())) {
-			productionFileInputStream = new FileInputStream(testFile.getProductionFilePath());
-			productionFileCompilationUnit = JavaParser.parse(productionFileInputStream);
+		TestFile getTestFile() {
+			return testFile;
 		}
+	}
 
-		initializeSmells();
+	/**
+	 * Analyzes the already parsed test file for the existence of the different
+	 * types of test smells. With -Dtestsmell.compactResults=true, the file is
+	 * compacted afterwards (see {@link TestFile#compact()}).
+	 *
+	 * @param productionFileCompilationUnit
+	 *            the parsed production file, or null if there is none
+	 */
+	public TestFile detectSmells(TestFile testFile, CompilationUnit testFileCompilationUnit,
+			CompilationUnit productionFileCompilationUnit) {
+		if (instrumentation != null)
+			detectSmellsSeparately(testFile, testFileCompilationUnit, productionFileCompilationUnit);
+		else
+			detectSmellsTogether(testFile, testFileCompilationUnit, productionFileCompilationUnit);
+		if (compactResults)
+			testFile.compact();
+		return testFile;
+	}
+
+	/**
+	 * Analyzes the test file for all smells in a single walk
+	 */
+	private void detectSmellsTogether(TestFile testFile, CompilationUnit testFileCompilationUnit,
+			CompilationUnit productionFileCompilationUnit) {
+		// every smell registers its visitor, then a single walk of the test file feeds
+		// all of them
+		List<AbstractSmell> smells = new ArrayList<>();
+		List<SmellVisitor> visitors = new ArrayList<>();
+		// the events are only kept while a recording takes them
+		List<SmellAnalyzedEvent> events = new SmellAnalyzedEvent().isEnabled() ? new ArrayList<>() : null;
 		for (AbstractSmell smell : testSmells) {
+			SmellAnalyzedEvent event = new SmellAnalyzedEvent();
+			event.begin();
 			try {
-				smell.runAnalysis(testFile, testFileCompilationUnit, productionFileCompilationUnit,
-						testFile.getTestFileNameWithoutExtension(), testFile.getProductionFileNameWithoutExtension());
+				visitors.add(smell.createVisitor(testFile, productionFileCompilationUnit));
+				smells.add(smell);
+				if (events != null)
+					events.add(event);
+			} catch (FileNotFoundException e) {
+				// the smell cannot be analyzed for this file, e.g. there is no production file
+			}
+		}
+		new FusedVisitor(visitors).visit(testFileCompilationUnit, null);
+
+		for (int i = 0; i < smells.size(); i++) {
+			SmellResult result = smells.get(i).createResult(visitors.get(i));
+			testFile.addSmell(result);
+			if (events != null)
+				events.get(i).record(testFile.getTestFilePath(), result.getSmellName(), result.getSmellCount(),
+						testFileCompilationUnit, true);
+		}
+	}
+
+	/**
+	 * Analyzes the test file for each smell in a walk of its own, recording the
+	 * cost of every smell. The results are the same as those of the shared walk.
+	 */
+	private void detectSmellsSeparately(TestFile testFile, CompilationUnit testFileCompilationUnit,
+			CompilationUnit productionFileCompilationUnit) {
+		for (AbstractSmell smell : testSmells) {
+			Instrumentation.Sample start = instrumentation.start();
+			SmellAnalyzedEvent event = new SmellAnalyzedEvent();
+			event.begin();
+			SmellVisitor visitor;
+			try {
+				visitor = smell.createVisitor(testFile, productionFileCompilationUnit);
 			} catch (FileNotFoundException e) {
-				testFile.addSmell(null);
 				continue;
 			}
-			testFile.addSmell(smell);
+			new FusedVisitor(Collections.singletonList(visitor)).visit(testFileCompilationUnit, null);
+			SmellResult result = smell.createResult(visitor);
+			testFile.addSmell(result);
+			event.record(testFile.getTestFilePath(), result.getSmellName(), result.getSmellCount(),
+					testFileCompilationUnit, false);
+			instrumentation.recordSmell(smell.getSmellName(), testFile.getTestFilePath(), start);
 		}
+	}
 
-		return testFile;
+	/**
+	 * Analyzes the given test files concurrently on a work-stealing pool of the
+	 * given size. The returned list is in the same order as the input, regardless
+	 * of the order in which the files finish.
+	 *
+	 * @param testFiles
+	 *            the files to analyze
+	 * @param threads
+	 *            the maximum number of files analyzed at the same time
+	 * @return the analyzed files, in input order
+	 */
+	public List<TestFile> detectSmells(List<TestFile> testFiles, int threads) throws IOException {
+		ExecutorService pool = Executors.newWorkStealingPool(threads);
+		try {
+			List<Future<TestFile>> futures = new ArrayList<>();
+			for (TestFile testFile : testFiles) {
+				futures.add(pool.submit(() -> detectSmells(testFile)));
+			}
 
+			List<TestFile> results = new ArrayList<>();
+			for (Future<TestFile> future : futures) {
+				results.add(getResult(future));
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static TestFile getResult(Future<TestFile> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for smell detection");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException(cause);
+		}
 	}
 
 }
@@ -0,0 +1,37 @@
+package testsmell.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A file whose results or AST were taken from a cache instead of being
+ * computed. The event lasts as long as the lookup.
+ */
+@Name("testsmell.CacheHit")
+@Label("Cache Hit")
+@Category("Test Smell Detector")
+@Description("A file whose results or AST were taken from a cache")
+public class CacheHitEvent extends Event {
+
+	@Label("File")
+	public String file;
+
+	@Label("Cache")
+	@Description("result for the ResultCache, production for the ProductionFileCache")
+	public String cache;
+
+	/**
+	 * Ends the event and commits it if it is recorded
+	 */
+	public void record(String file, String cache) {
+		end();
+		if (shouldCommit()) {
+			this.file = file;
+			this.cache = cache;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package testsmell.jfr;
+
+import com.github.javaparser.ast.Node;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A java file parsed into an AST. The nodes of the AST are only counted when
+ * the event is recorded.
+ */
+@Name("testsmell.FileParsed")
+@Label("File Parsed")
+@Category("Test Smell Detector")
+@Description("A java file parsed into an AST")
+public class FileParsedEvent extends Event {
+
+	@Label("File")
+	public String file;
+
+	@Label("Kind")
+	@Description("test, production or classify, i.e. parsed to find the test and production files")
+	public String kind;
+
+	@Label("Size")
+	@DataAmount
+	public long bytes;
+
+	@Label("Nodes")
+	public int nodes;
+
+	/**
+	 * Ends the event and commits it if it is recorded
+	 *
+	 * @param root
+	 *            the parsed AST, or null if the file could not be parsed
+	 */
+	public void record(String file, String kind, long bytes, Node root) {
+		end();
+		if (shouldCommit()) {
+			this.file = file;
+			this.kind = kind;
+			this.bytes = bytes;
+			this.nodes = root == null ? 0 : countNodes(root);
+			commit();
+		}
+	}
+
+	/**
+	 * Returns the number of nodes of the AST, including its root
+	 */
+	static int countNodes(Node root) {
+		return root.getChildNodesByType(Node.class).size() + 1;
+	}
+}
@@ -0,0 +1,36 @@
+package testsmell.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Buffered rows flushed to an output file. The event lasts as long as the
+ * flush.
+ */
+@Name("testsmell.RowsWritten")
+@Label("Rows Written")
+@Category("Test Smell Detector")
+@Description("Buffered rows flushed to an output file")
+public class RowsWrittenEvent extends Event {
+
+	@Label("Output File")
+	public String file;
+
+	@Label("Rows")
+	public int rows;
+
+	/**
+	 * Ends the event and commits it if it is recorded
+	 */
+	public void record(String file, int rows) {
+		end();
+		if (shouldCommit()) {
+			this.file = file;
+			this.rows = rows;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package testsmell.jfr;
+
+import com.github.javaparser.ast.Node;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A smell analyzed on a test file. Smells usually share a single walk of the
+ * test file, and then the events of its smells overlap and each lasts about as
+ * long as the whole walk; only events without a shared walk give the cost of
+ * their smell alone. The nodes of the test file are only counted when the event
+ * is recorded.
+ */
+@Name("testsmell.SmellAnalyzed")
+@Label("Smell Analyzed")
+@Category("Test Smell Detector")
+@Description("A smell analyzed on a test file")
+public class SmellAnalyzedEvent extends Event {
+
+	@Label("Test File")
+	public String file;
+
+	@Label("Smell")
+	public String smell;
+
+	@Label("Smelly Methods")
+	public int smellyMethods;
+
+	@Label("Nodes")
+	public int nodes;
+
+	@Label("Shared Walk")
+	@Description("Whether the test file was walked for all smells at once")
+	public boolean sharedWalk;
+
+	/**
+	 * Ends the event and commits it if it is recorded
+	 *
+	 * @param root
+	 *            the AST of the test file
+	 */
+	public void record(String file, String smell, int smellyMethods, Node root, boolean sharedWalk) {
+		end();
+		if (shouldCommit()) {
+			this.file = file;
+			this.smell = smell;
+			this.smellyMethods = smellyMethods;
+			this.nodes = FileParsedEvent.countNodes(root);
+			this.sharedWalk = sharedWalk;
+			commit();
+		}
+	}
+}
@@ -1,15 +1,14 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -22,13 +21,6 @@ import testsmell.Util;
  */
 public class AssertionRoulette extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public AssertionRoulette() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Assertion Roulette' smell
 	 */
@@ -37,76 +29,64 @@ public class AssertionRoulette extends AbstractSmell {
 		return "Assertion Roulette";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods for multiple assert statements without
 	 * an explanation/message
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		AssertionRoulette.ClassVisitor classVisitor;
-		classVisitor = new AssertionRoulette.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
-	}
-
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new AssertionRoulette.ClassVisitor(testFile);
 	}
 
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int assertNoMessageCount = 0;
 		private int assertCount = 0;
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
-
-				// if there is only 1 assert statement in the method, then a explanation message
-				// is not needed
-				if (assertCount == 1)
-					testMethod.setHasSmell(false);
-				else if (assertNoMessageCount >= 1) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Assertion Roulette", testMethod);
-				}
+				return true;
+			}
+			return false;
+		}
 
-				testMethod.addDataItem("AssertCount", String.valueOf(assertNoMessageCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			// if there is only 1 assert statement in the method, then a explanation message
+			// is not needed
+			if (assertCount == 1)
+				testMethod.setHasSmell(false);
+			else if (assertNoMessageCount >= 1) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Assertion Roulette", testMethod);
+			}
 
-				smellyElementList.add(testMethod);
+			testMethod.addDataItem("AssertCount", String.valueOf(assertNoMessageCount));
 
-				// reset values for next method
-				currentMethod = null;
-				assertCount = 0;
-				assertNoMessageCount = 0;
-			}
+			smellyElementList.add(testMethod);
+
+			// reset values for next method
+			currentMethod = null;
+			assertCount = 0;
+			assertNoMessageCount = 0;
 		}
 
 		// examine the methods being called within the test method
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				// if the name of a method being called is an assertion and has 3 parameters
 				if (n.getNameAsString().startsWith(("assertArrayEquals"))
@@ -142,5 +122,12 @@ public class AssertionRoulette extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,9 +11,9 @@ import com.github.javaparser.ast.stmt.ForeachStmt;
 import com.github.javaparser.ast.stmt.IfStmt;
 import com.github.javaparser.ast.stmt.SwitchStmt;
 import com.github.javaparser.ast.stmt.WhileStmt;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -23,13 +22,6 @@ import testsmell.Util;
 This class check a test method for the existence of loops and conditional statements in the methods body
  */
 public class ConditionalTestLogic extends AbstractSmell {
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public ConditionalTestLogic() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Conditional Test Logic' smell
 	 */
@@ -38,126 +30,114 @@ public class ConditionalTestLogic extends AbstractSmell {
 		return "Conditional Test Logic";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that use conditional statements
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		ConditionalTestLogic.ClassVisitor classVisitor;
-		classVisitor = new ConditionalTestLogic.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
-	}
-
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new ConditionalTestLogic.ClassVisitor(testFile);
 	}
 
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int conditionCount, ifCount, switchCount, forCount, foreachCount, whileCount = 0;
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
-
-				if (conditionCount > 0 | ifCount > 0 | switchCount > 0 | foreachCount > 0 | forCount > 0
-						| whileCount > 0) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Conditional Test Logic", testMethod);
-				}
-
-				testMethod.addDataItem("ConditionCount", String.valueOf(conditionCount));
-				testMethod.addDataItem("IfCount", String.valueOf(ifCount));
-				testMethod.addDataItem("SwitchCount", String.valueOf(switchCount));
-				testMethod.addDataItem("ForeachCount", String.valueOf(foreachCount));
-				testMethod.addDataItem("ForCount", String.valueOf(forCount));
-				testMethod.addDataItem("WhileCount", String.valueOf(whileCount));
-
-				smellyElementList.add(testMethod);
-
-				// reset values for next method
-				currentMethod = null;
-				conditionCount = 0;
-				ifCount = 0;
-				switchCount = 0;
-				forCount = 0;
-				foreachCount = 0;
-				whileCount = 0;
+				return true;
 			}
+			return false;
+		}
+
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (conditionCount > 0 | ifCount > 0 | switchCount > 0 | foreachCount > 0 | forCount > 0
+					| whileCount > 0) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Conditional Test Logic", testMethod);
+			}
+
+			testMethod.addDataItem("ConditionCount", String.valueOf(conditionCount));
+			testMethod.addDataItem("IfCount", String.valueOf(ifCount));
+			testMethod.addDataItem("SwitchCount", String.valueOf(switchCount));
+			testMethod.addDataItem("ForeachCount", String.valueOf(foreachCount));
+			testMethod.addDataItem("ForCount", String.valueOf(forCount));
+			testMethod.addDataItem("WhileCount", String.valueOf(whileCount));
+
+			smellyElementList.add(testMethod);
+
+			// reset values for next method
+			currentMethod = null;
+			conditionCount = 0;
+			ifCount = 0;
+			switchCount = 0;
+			forCount = 0;
+			foreachCount = 0;
+			whileCount = 0;
 		}
 
 		@Override
-		public void visit(IfStmt n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(IfStmt n) {
 			if (currentMethod != null) {
 				ifCount++;
 			}
 		}
 
 		@Override
-		public void visit(SwitchStmt n, Void arg) {
-
-			super.visit(n, arg);
+		public void endVisit(SwitchStmt n) {
 			if (currentMethod != null) {
 				switchCount++;
 			}
 		}
 
 		@Override
-		public void visit(ConditionalExpr n, Void arg) {
-
-			super.visit(n, arg);
+		public void endVisit(ConditionalExpr n) {
 			if (currentMethod != null) {
 				conditionCount++;
 			}
 		}
 
 		@Override
-		public void visit(ForStmt n, Void arg) {
-
-			super.visit(n, arg);
+		public void endVisit(ForStmt n) {
 			if (currentMethod != null) {
 				forCount++;
 			}
 		}
 
 		@Override
-		public void visit(ForeachStmt n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(ForeachStmt n) {
 			if (currentMethod != null) {
 				foreachCount++;
 			}
 		}
 
 		@Override
-		public void visit(WhileStmt n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(WhileStmt n) {
 			if (currentMethod != null) {
 				whileCount++;
 			}
 		}
+
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -9,22 +8,15 @@ import java.util.Set;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class DuplicateAssert extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public DuplicateAssert() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Duplicate Assert' smell
 	 */
@@ -33,81 +25,69 @@ public class DuplicateAssert extends AbstractSmell {
 		return "Duplicate Assert";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that have multiple assert statements
 	 * with the same explanation message
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		DuplicateAssert.ClassVisitor classVisitor;
-		classVisitor = new DuplicateAssert.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
-	}
-
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new DuplicateAssert.ClassVisitor(testFile);
 	}
 
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		TestMethod testMethod;
 		List<String> assertMessage = new ArrayList<>();
 		List<String> assertMethod = new ArrayList<>();
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				// if there are duplicate messages, then the smell exists
-				Set<String> set1 = new HashSet<String>(assertMessage);
-				if (set1.size() < assertMessage.size()) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Duplicate Assert", testMethod);
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			// if there are duplicate messages, then the smell exists
+			Set<String> set1 = new HashSet<String>(assertMessage);
+			if (set1.size() < assertMessage.size()) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Duplicate Assert", testMethod);
 
-				}
+			}
 
-				// if there are duplicate assert methods, then the smell exists
-				Set<String> set2 = new HashSet<String>(assertMethod);
-				if (set2.size() < assertMethod.size()) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Duplicate Assert", testMethod);
+			// if there are duplicate assert methods, then the smell exists
+			Set<String> set2 = new HashSet<String>(assertMethod);
+			if (set2.size() < assertMethod.size()) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Duplicate Assert", testMethod);
 
-				}
+			}
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				assertMessage = new ArrayList<>();
-				assertMethod = new ArrayList<>();
-			}
+			// reset values for next method
+			currentMethod = null;
+			assertMessage = new ArrayList<>();
+			assertMethod = new ArrayList<>();
 		}
 
 		// examine the methods being called within the test method
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				// if the name of a method being called start with 'assert'
 				// if the name of a method being called is an assertion and has 3 parameters
@@ -144,5 +124,12 @@ public class DuplicateAssert extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
@@ -2,8 +2,12 @@ package testsmell.smell;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Modifier;
@@ -14,25 +18,23 @@ import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class EagerTest extends AbstractSmell {
 
-	private static final String TEST_FILE = "Test";
-	private static final String PRODUCTION_FILE = "Production";
-	private String productionClassName;
-	private List<TestMethod> smellyElementList;
-	private List<MethodDeclaration> productionMethods;
-	private TestFile currentTestFile;
-
-	public EagerTest() {
-		productionMethods = new ArrayList<>();
-		smellyElementList = new ArrayList<TestMethod>();
-	}
+	/**
+	 * The summary of each production file, built once however many test files
+	 * test it. Keyed by identity and dropped with the compilation unit.
+	 */
+	private final Cache<CompilationUnit, ProductionSummary> productionSummaries = CacheBuilder.newBuilder()
+			.weakKeys().build();
 
 	/**
 	 * Checks of 'Eager Test' smell
@@ -42,130 +44,149 @@ public class EagerTest extends AbstractSmell {
 		return "Eager Test";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that exhibit the 'Eager Test' smell
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit)
 			throws FileNotFoundException {
 
-		this.currentTestFile = testFile;
-
 		if (productionFileCompilationUnit == null)
 			throw new FileNotFoundException();
 
-		EagerTest.ClassVisitor classVisitor;
-
-		classVisitor = new EagerTest.ClassVisitor(PRODUCTION_FILE);
-		classVisitor.visit(productionFileCompilationUnit, null);
-
-		classVisitor = new EagerTest.ClassVisitor(TEST_FILE);
-		classVisitor.visit(testFileCompilationUnit, null);
+		ProductionSummary productionSummary;
+		try {
+			productionSummary = productionSummaries.get(productionFileCompilationUnit, () -> {
+				EagerTest.ProductionVisitor productionVisitor = new EagerTest.ProductionVisitor();
+				productionVisitor.visit(productionFileCompilationUnit, null);
+				return productionVisitor.summary;
+			});
+		} catch (ExecutionException e) {
+			// the production visitor throws no checked exceptions
+			throw new IllegalStateException(e.getCause());
+		}
 
+		return new EagerTest.ClassVisitor(testFile, productionSummary);
 	}
 
 	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
+	 * The name of the production class and its public/protected methods, indexed
+	 * by name and number of parameters
 	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	private static class ProductionSummary {
+		private String productionClassName;
+		private Map<String, Set<Integer>> methodArities = new HashMap<>();
+
+		/**
+		 * Checks if the production class has a public/protected method with the given
+		 * name and number of parameters
+		 */
+		private boolean hasMethod(String name, int arity) {
+			Set<Integer> arities = methodArities.get(name);
+			return arities != null && arities.contains(arity);
+		}
 	}
 
 	/**
-	 * Visitor class
+	 * Visitor class for the production file, collects the name of the production
+	 * class and its public/protected methods
 	 */
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
-		private MethodDeclaration currentMethod = null;
-		TestMethod testMethod;
-		private int eagerCount = 0;
-		private List<String> productionVariables = new ArrayList<>();
-		private List<String> calledMethods = new ArrayList<>();
-		private String fileType;
-
-		public ClassVisitor(String type) {
-			fileType = type;
-		}
+	private static class ProductionVisitor extends VoidVisitorAdapter<Void> {
+		private ProductionSummary summary = new ProductionSummary();
 
 		@Override
 		public void visit(ClassOrInterfaceDeclaration n, Void arg) {
-			if (Objects.equals(fileType, PRODUCTION_FILE)) {
-				productionClassName = n.getNameAsString();
-			}
+			summary.productionClassName = n.getNameAsString();
 			super.visit(n, arg);
 		}
 
 		@Override
 		public void visit(EnumDeclaration n, Void arg) {
-			if (Objects.equals(fileType, PRODUCTION_FILE)) {
-				productionClassName = n.getNameAsString();
-			}
+			summary.productionClassName = n.getNameAsString();
 			super.visit(n, arg);
 		}
 
 		/**
-		 * The purpose of this method is to 'visit' all test methods.
+		 * Collect a list of all public/protected members of the production class
 		 */
 		@Override
 		public void visit(MethodDeclaration n, Void arg) {
-			// ensure that this method is only executed for the test file
-			if (Objects.equals(fileType, TEST_FILE)) {
-				if (Util.isValidTestMethod(n)) {
-					currentMethod = n;
-					testMethod = new TestMethod(currentMethod.getNameAsString());
-					currentTestFile.addTest(testMethod);
-					testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-					super.visit(n, arg);
-
-					if (eagerCount > 1) {
-						testMethod.setHasSmell(true); // the method has a smell if there is more than 1 call to
-														// production methods
-						currentTestFile.addSmellMethod("Eager Test", testMethod);
+			for (Modifier modifier : n.getModifiers()) {
+				if (modifier.name().toLowerCase().equals("public")
+						|| modifier.name().toLowerCase().equals("protected")) {
+					summary.methodArities.computeIfAbsent(n.getNameAsString(), name -> new HashSet<>())
+							.add(n.getParameters().size());
+				}
+			}
+		}
+	}
 
-					}
-					smellyElementList.add(testMethod);
+	/**
+	 * Visitor class for the test file
+	 */
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final String productionClassName;
+		private final ProductionSummary productionSummary;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
+		private MethodDeclaration currentMethod = null;
+		TestMethod testMethod;
+		private int eagerCount = 0;
+		private List<String> productionVariables = new ArrayList<>();
+		private List<String> calledMethods = new ArrayList<>();
 
-					// reset values for next method
-					currentMethod = null;
-					eagerCount = 0;
-					productionVariables = new ArrayList<>();
-					calledMethods = new ArrayList<>();
-				}
-			} else { // collect a list of all public/protected members of the production class
-				for (Modifier modifier : n.getModifiers()) {
-					if (modifier.name().toLowerCase().equals("public")
-							|| modifier.name().toLowerCase().equals("protected")) {
-						productionMethods.add(n);
-					}
-				}
+		private ClassVisitor(TestFile testFile, ProductionSummary productionSummary) {
+			this.currentTestFile = testFile;
+			this.productionClassName = productionSummary.productionClassName;
+			this.productionSummary = productionSummary;
+		}
+
+		/**
+		 * The purpose of this method is to 'visit' all test methods.
+		 */
+		@Override
+		public boolean visit(MethodDeclaration n) {
+			if (Util.isValidTestMethod(n)) {
+				currentMethod = n;
+				testMethod = new TestMethod(currentMethod.getNameAsString());
+				currentTestFile.addTest(testMethod);
+				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (eagerCount > 1) {
+				testMethod.setHasSmell(true); // the method has a smell if there is more than 1 call to
+												// production methods
+				currentTestFile.addSmellMethod("Eager Test", testMethod);
 
 			}
+			smellyElementList.add(testMethod);
+
+			// reset values for next method
+			currentMethod = null;
+			eagerCount = 0;
+			productionVariables = new ArrayList<>();
+			calledMethods = new ArrayList<>();
 		}
 
 		/**
 		 * The purpose of this method is to identify the production class methods that
 		 * are called from the test method When the parser encounters a method call: 1)
-		 * the method is contained in the productionMethods list or 2) the code will
+		 * the method is one of the production class methods or 2) the code will
 		 * check the 'scope' of the called method A match is made if the scope is
 		 * either: equal to the name of the production class (as in the case of a static
 		 * method) or if the scope is a variable that has been declared to be of type of
 		 * the production class (i.e. contained in the 'productionVariables' list).
 		 */
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
+		public boolean visit(MethodCallExpr n) {
 			NameExpr nameExpr = null;
 			if (currentMethod != null) {
-				if (productionMethods.stream().anyMatch(i -> i.getNameAsString().equals(n.getNameAsString())
-						&& i.getParameters().size() == n.getArguments().size())) {
+				if (productionSummary.hasMethod(n.getNameAsString(), n.getArguments().size())) {
 					eagerCount++;
 					calledMethods.add(n.getNameAsString());
 				} else {
@@ -197,7 +218,7 @@ public class EagerTest extends AbstractSmell {
 					}
 				}
 			}
-			super.visit(n, arg);
+			return true;
 		}
 
 		private NameExpr tempNameExpr;
@@ -216,13 +237,19 @@ public class EagerTest extends AbstractSmell {
 		}
 
 		@Override
-		public void visit(VariableDeclarator n, Void arg) {
-			if (Objects.equals(fileType, TEST_FILE)) {
-				if (productionClassName.equals(n.getType().asString())) {
-					productionVariables.add(n.getNameAsString());
-				}
+		public boolean visit(VariableDeclarator n) {
+			if (productionClassName.equals(n.getType().asString())) {
+				productionVariables.add(n.getNameAsString());
 			}
-			super.visit(n, arg);
+			return true;
+		}
+
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
 		}
 	}
 
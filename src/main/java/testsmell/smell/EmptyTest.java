@@ -1,14 +1,13 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -20,13 +19,6 @@ import testsmell.Util;
  */
 public class EmptyTest extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public EmptyTest() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Empty Test' smell
 	 */
@@ -35,46 +27,31 @@ public class EmptyTest extends AbstractSmell {
 		return "EmptyTest";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that are empty (i.e. no method body)
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		EmptyTest.ClassVisitor classVisitor;
-		classVisitor = new EmptyTest.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
-	}
-
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new EmptyTest.ClassVisitor(testFile);
 	}
 
 	/**
 	 * Visitor class
 	 */
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		/**
 		 * The purpose of this method is to 'visit' all test methods in the test file
 		 */
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
@@ -91,6 +68,16 @@ public class EmptyTest extends AbstractSmell {
 				}
 				smellyElementList.add(testMethod);
 			}
+			// the method body is not visited any further
+			return false;
+		}
+
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
 		}
 	}
 }
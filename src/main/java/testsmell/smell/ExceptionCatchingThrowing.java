@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,9 +7,9 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.stmt.CatchClause;
 import com.github.javaparser.ast.stmt.ThrowStmt;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -21,13 +20,6 @@ If this code detects the existence of a catch block or a throw statement in the
  */
 public class ExceptionCatchingThrowing extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public ExceptionCatchingThrowing() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Exception Catching Throwing' smell
 	 */
@@ -36,84 +28,76 @@ public class ExceptionCatchingThrowing extends AbstractSmell {
 		return "Exception Catching Throwing";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that have exception handling
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		ExceptionCatchingThrowing.ClassVisitor classVisitor;
-		classVisitor = new ExceptionCatchingThrowing.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
-	}
-
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new ExceptionCatchingThrowing.ClassVisitor(testFile);
 	}
 
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int exceptionCount = 0;
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (n.getThrownExceptions().size() >= 1)
-					exceptionCount++;
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (n.getThrownExceptions().size() >= 1)
+				exceptionCount++;
 
-				if (exceptionCount >= 1) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Exception Catching Throwing", testMethod);
-				}
-				testMethod.addDataItem("ExceptionCount", String.valueOf(exceptionCount));
+			if (exceptionCount >= 1) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Exception Catching Throwing", testMethod);
+			}
+			testMethod.addDataItem("ExceptionCount", String.valueOf(exceptionCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				exceptionCount = 0;
-			}
+			// reset values for next method
+			currentMethod = null;
+			exceptionCount = 0;
 		}
 
 		@Override
-		public void visit(ThrowStmt n, Void arg) {
-			super.visit(n, arg);
-
+		public void endVisit(ThrowStmt n) {
 			if (currentMethod != null) {
 				exceptionCount++;
 			}
 		}
 
 		@Override
-		public void visit(CatchClause n, Void arg) {
-			super.visit(n, arg);
-
+		public void endVisit(CatchClause n) {
 			if (currentMethod != null) {
 				exceptionCount++;
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
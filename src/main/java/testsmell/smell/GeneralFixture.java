@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -17,29 +16,15 @@ import com.github.javaparser.ast.expr.AssignExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class GeneralFixture extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-	List<MethodDeclaration> methodList;
-	MethodDeclaration setupMethod;
-	List<FieldDeclaration> fieldList;
-	List<String> setupFields;
-
-	public GeneralFixture() {
-		smellyElementList = new ArrayList<>();
-		methodList = new ArrayList<>();
-		fieldList = new ArrayList<>();
-		setupFields = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'General Fixture' smell
 	 */
@@ -48,84 +33,57 @@ public class GeneralFixture extends AbstractSmell {
 		return "General Fixture";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
 	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
-	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		GeneralFixture.ClassVisitor classVisitor;
-		classVisitor = new GeneralFixture.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null); // This call will populate the list of test methods and
-															// identify the setup method
-															// [visit(ClassOrInterfaceDeclaration n)]
-
-		// Proceed with general fixture analysis if setup method exists
-		if (setupMethod != null) {
-			// Get all fields that are initialized in the setup method
-			// The following code block will identify the class level variables (i.e.
-			// fields) that are initialized in the setup method
-			// TODO: There has to be a better way to do this identification/check!
-			Optional<BlockStmt> blockStmt = setupMethod.getBody();
-			NodeList<?> nodeList = blockStmt.get().getStatements();
-			for (int i = 0; i < nodeList.size(); i++) {
-				for (int j = 0; j < fieldList.size(); j++) {
-					for (int k = 0; k < fieldList.get(j).getVariables().size(); k++) {
-						if (nodeList.get(i) instanceof ExpressionStmt) {
-							ExpressionStmt expressionStmt = (ExpressionStmt) nodeList.get(i);
-							if (expressionStmt.getExpression() instanceof AssignExpr) {
-								AssignExpr assignExpr = (AssignExpr) expressionStmt.getExpression();
-								if (fieldList.get(j).getVariable(k).getNameAsString()
-										.equals(assignExpr.getTarget().toString())) {
-									setupFields.add(assignExpr.getTarget().toString());
-								}
-							}
-						}
-					}
-				}
-			}
-		}
-
-		for (MethodDeclaration method : methodList) {
-			// This call will visit each test method to identify the list of variables the
-			// method contains [visit(MethodDeclaration n)]
-			classVisitor.visit(method, null);
-		}
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new GeneralFixture.ClassVisitor(testFile);
 	}
 
 	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
+	 * Something seen inside a test method: its start, its end or a name used in
+	 * it. These are recorded during the walk and replayed once the setup fields
+	 * are known.
 	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	private static class TestMethodEvent {
+		private final MethodDeclaration method;
+		private final boolean end;
+		private final String name;
+
+		private TestMethodEvent(MethodDeclaration method, boolean end, String name) {
+			this.method = method;
+			this.end = end;
+			this.name = name;
+		}
 	}
 
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
+		private MethodDeclaration setupMethod;
+		private List<FieldDeclaration> fieldList = new ArrayList<>();
+		private List<String> setupFields = new ArrayList<>();
 		private MethodDeclaration methodDeclaration = null;
 		private MethodDeclaration currentMethod = null;
 		TestMethod testMethod;
 		private Set<String> fixtureCount = new HashSet<String>();
+		private int classDepth = 0;
+		private MethodDeclaration recordedMethod = null;
+		private List<TestMethodEvent> events = new ArrayList<>();
+
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
 
 		@Override
-		public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+		public boolean visit(ClassOrInterfaceDeclaration n) {
+			// only the members of the outermost class are of interest
+			if (classDepth > 0 || recordedMethod != null)
+				return false;
+
 			NodeList<BodyDeclaration<?>> members = n.getMembers();
 			for (int i = 0; i < members.size(); i++) {
 				if (members.get(i) instanceof MethodDeclaration) {
 					methodDeclaration = (MethodDeclaration) members.get(i);
 
-					// Get a list of all test methods
-					if (Util.isValidTestMethod(methodDeclaration)) {
-						methodList.add(methodDeclaration);
-					}
-
 					// Get the setup method
 					if (Util.isValidSetupMethod(methodDeclaration)) {
 						// It should have a body
@@ -140,48 +98,126 @@ public class GeneralFixture extends AbstractSmell {
 					fieldList.add((FieldDeclaration) members.get(i));
 				}
 			}
+			classDepth++;
+			return true;
 		}
 
-		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
-			if (Util.isValidTestMethod(n)) {
-				currentMethod = n;
+		public void endVisit(ClassOrInterfaceDeclaration n) {
+			classDepth--;
+		}
 
-				// call visit(NameExpr) for current method
-				super.visit(n, arg);
+		// record all test methods of the test class
+		@Override
+		public boolean visit(MethodDeclaration n) {
+			if (!Util.isValidTestMethod(n))
+				return false;
+
+			if (recordedMethod == null) {
+				// only test methods declared directly in the test class are analyzed
+				if (!(n.getParentNode().orElse(null) instanceof ClassOrInterfaceDeclaration))
+					return false;
+				recordedMethod = n;
+			}
+			events.add(new TestMethodEvent(n, false, null));
+			return true;
+		}
+
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			events.add(new TestMethodEvent(n, true, null));
+			if (recordedMethod == n)
+				recordedMethod = null;
+		}
 
-				testMethod = new TestMethod(n.getNameAsString());
-				currentTestFile.addTest(testMethod);
-				if (fixtureCount.size() != setupFields.size()) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("General Fixture", testMethod);
+		@Override
+		public boolean visit(NameExpr n) {
+			if (recordedMethod != null)
+				events.add(new TestMethodEvent(null, false, n.getNameAsString()));
+			return true;
+		}
 
+		@Override
+		public void endVisit(CompilationUnit n) {
+			findSetupFields();
+
+			for (TestMethodEvent event : events) {
+				if (event.name != null) {
+					nameUsed(event.name);
+				} else if (!event.end) {
+					currentMethod = event.method;
 				} else {
-					testMethod.setHasSmell(false);
+					testMethodEnded(event.method);
 				}
-				smellyElementList.add(testMethod);
-				fixtureCount = new HashSet<String>();
-				currentMethod = null;
 			}
 		}
 
-		@Override
-		public void visit(NameExpr n, Void arg) {
+		/**
+		 * Identifies the class level variables (i.e. fields) that are initialized in
+		 * the setup method. Only possible once the whole test class has been visited,
+		 * as the setup method may be declared after the test methods.
+		 */
+		private void findSetupFields() {
+			// Proceed with general fixture analysis if setup method exists
+			if (setupMethod != null) {
+				// Get all fields that are initialized in the setup method
+				// The following code block will identify the class level variables (i.e.
+				// fields) that are initialized in the setup method
+				// TODO: There has to be a better way to do this identification/check!
+				Optional<BlockStmt> blockStmt = setupMethod.getBody();
+				NodeList<?> nodeList = blockStmt.get().getStatements();
+				for (int i = 0; i < nodeList.size(); i++) {
+					for (int j = 0; j < fieldList.size(); j++) {
+						for (int k = 0; k < fieldList.get(j).getVariables().size(); k++) {
+							if (nodeList.get(i) instanceof ExpressionStmt) {
+								ExpressionStmt expressionStmt = (ExpressionStmt) nodeList.get(i);
+								if (expressionStmt.getExpression() instanceof AssignExpr) {
+									AssignExpr assignExpr = (AssignExpr) expressionStmt.getExpression();
+									if (fieldList.get(j).getVariable(k).getNameAsString()
+											.equals(assignExpr.getTarget().toString())) {
+										setupFields.add(assignExpr.getTarget().toString());
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+
+		private void testMethodEnded(MethodDeclaration n) {
+			testMethod = new TestMethod(n.getNameAsString());
+			currentTestFile.addTest(testMethod);
+			if (fixtureCount.size() != setupFields.size()) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("General Fixture", testMethod);
+
+			} else {
+				testMethod.setHasSmell(false);
+			}
+			smellyElementList.add(testMethod);
+			fixtureCount = new HashSet<String>();
+			currentMethod = null;
+		}
+
+		private void nameUsed(String name) {
 			if (currentMethod != null) {
 				// check if the variable contained in the current test method is also contained
 				// in the setup method
-				if (setupFields.contains(n.getNameAsString())) {
-					if (!fixtureCount.contains(n.getNameAsString())) {
-						fixtureCount.add(n.getNameAsString());
+				if (setupFields.contains(name)) {
+					if (!fixtureCount.contains(name)) {
+						fixtureCount.add(name);
 					}
-					// System.out.println(currentMethod.getNameAsString() + " : " +
-					// n.getName().toString());
 				}
 			}
-
-			super.visit(n, arg);
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,22 +8,15 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class MagicNumberTest extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public MagicNumberTest() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'MagicNumberTest' smell
 	 */
@@ -33,69 +25,57 @@ public class MagicNumberTest extends AbstractSmell {
 		return "Magic Number Test";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that have magic numbers in as
 	 * parameters in the assert methods
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		MagicNumberTest.ClassVisitor classVisitor;
-		classVisitor = new MagicNumberTest.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new MagicNumberTest.ClassVisitor(testFile);
 	}
 
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
-	}
-
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		TestMethod testMethod;
 		private int magicCount = 0;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (magicCount >= 1) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Magic Number Test", testMethod);
-				}
-				testMethod.addDataItem("MagicNumberCount", String.valueOf(magicCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (magicCount >= 1) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Magic Number Test", testMethod);
+			}
+			testMethod.addDataItem("MagicNumberCount", String.valueOf(magicCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				magicCount = 0;
-			}
+			// reset values for next method
+			currentMethod = null;
+			magicCount = 0;
 		}
 
 		// examine the methods being called within the test method
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				// if the name of a method being called start with 'assert'
 				if (n.getNameAsString().startsWith(("assertArrayEquals"))
@@ -133,6 +113,13 @@ public class MagicNumberTest extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -9,9 +8,9 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -28,13 +27,6 @@ import testsmell.Util;
  */
 public class MysteryGuest extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public MysteryGuest() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Mystery Guest' smell
 	 */
@@ -43,40 +35,25 @@ public class MysteryGuest extends AbstractSmell {
 		return "Mystery Guest";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that use external resources
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		MysteryGuest.ClassVisitor classVisitor;
-		classVisitor = new MysteryGuest.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
-	}
-
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new MysteryGuest.ClassVisitor(testFile);
 	}
 
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private List<String> mysteryTypes = new ArrayList<>(
 				Arrays.asList("File", "FileOutputStream", "SQLiteOpenHelper", "SQLiteDatabase", "Cursor", "Context",
 						"HttpClient", "HttpResponse", "HttpPost", "HttpGet", "SoapObject"));
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		/*
 		 * private List<String> databaseMethods = new ArrayList<>( Arrays.asList(
 		 * "getWritableDatabase", "getReadableDatabase", "execSQL", "rawQuery" ));
@@ -93,26 +70,30 @@ public class MysteryGuest extends AbstractSmell {
 
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (mysteryCount > 0) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Mystery Guest", testMethod);
-				}
-				testMethod.addDataItem("MysteryCount", String.valueOf(mysteryCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (mysteryCount > 0) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Mystery Guest", testMethod);
+			}
+			testMethod.addDataItem("MysteryCount", String.valueOf(mysteryCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				mysteryCount = 0;
-			}
+			// reset values for next method
+			currentMethod = null;
+			mysteryCount = 0;
 		}
 
 		/*
@@ -126,8 +107,7 @@ public class MysteryGuest extends AbstractSmell {
 		 */
 
 		@Override
-		public void visit(VariableDeclarationExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(VariableDeclarationExpr n) {
 			// Note: the null check limits the identification of variable types declared
 			// within the method body.
 			// Removing it will check for variables declared at the class level.
@@ -148,5 +128,13 @@ public class MysteryGuest extends AbstractSmell {
 				}
 			}
 		}
+
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,9 +8,9 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.FieldAccessExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -22,13 +21,6 @@ This code checks the body of each test method if System.out. print(), println(),
  */
 public class PrintStatement extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public PrintStatement() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Print Statement' smell
 	 */
@@ -37,68 +29,56 @@ public class PrintStatement extends AbstractSmell {
 		return "Print Statement";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that print output to the console
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		PrintStatement.ClassVisitor classVisitor;
-		classVisitor = new PrintStatement.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new PrintStatement.ClassVisitor(testFile);
 	}
 
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
-	}
-
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int printCount = 0;
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (printCount >= 1) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Print Statement", testMethod);
-				}
-				testMethod.addDataItem("PrintCount", String.valueOf(printCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (printCount >= 1) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Print Statement", testMethod);
+			}
+			testMethod.addDataItem("PrintCount", String.valueOf(printCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				printCount = 0;
-			}
+			// reset values for next method
+			currentMethod = null;
+			printCount = 0;
 		}
 
 		// examine the methods being called within the test method
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				// if the name of a method being called is 'print' or 'println' or 'printf' or
 				// 'write'
@@ -122,5 +102,12 @@ public class PrintStatement extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,9 +8,9 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.BooleanLiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NullLiteralExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
@@ -21,13 +20,6 @@ If a test method contains an assert statement that explicitly returns a true or
  */
 public class RedundantAssertion extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public RedundantAssertion() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Redundant Assertion' smell
 	 */
@@ -36,69 +28,57 @@ public class RedundantAssertion extends AbstractSmell {
 		return "Redundant Assertion";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods for multiple assert statements
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		RedundantAssertion.ClassVisitor classVisitor;
-		classVisitor = new RedundantAssertion.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new RedundantAssertion.ClassVisitor(testFile);
 	}
 
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
-	}
-
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int redundantCount = 0;
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (redundantCount >= 1) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Redundant Assertion", testMethod);
-				}
-				testMethod.addDataItem("RedundantCount", String.valueOf(redundantCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (redundantCount >= 1) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Redundant Assertion", testMethod);
+			}
+			testMethod.addDataItem("RedundantCount", String.valueOf(redundantCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				redundantCount = 0;
-			}
+			// reset values for next method
+			currentMethod = null;
+			redundantCount = 0;
 		}
 
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
+		public void endVisit(MethodCallExpr n) {
 			String argumentValue = null;
 
-			super.visit(n, arg);
 			if (currentMethod != null) {
 				switch (n.getNameAsString()) {
 				case "assertTrue":
@@ -172,5 +152,12 @@ public class RedundantAssertion extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,22 +11,15 @@ import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class ResourceOptimism extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public ResourceOptimism() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Resource Optimism' smell
 	 */
@@ -36,36 +28,17 @@ public class ResourceOptimism extends AbstractSmell {
 		return "Resource Optimism";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for the 'ResourceOptimism' smell
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		ResourceOptimism.ClassVisitor classVisitor;
-		classVisitor = new ResourceOptimism.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new ResourceOptimism.ClassVisitor(testFile);
 	}
 
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
-	}
-
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int resourceOptimismCount = 0;
 		private boolean hasSmell = false;
@@ -73,34 +46,42 @@ public class ResourceOptimism extends AbstractSmell {
 		private List<String> methodVariables = new ArrayList<>();
 		private List<String> classVariables = new ArrayList<>();
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (methodVariables.size() >= 1 || hasSmell == true) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Resource Optimism", testMethod);
-				}
-				testMethod.addDataItem("ResourceOptimismCount", String.valueOf(resourceOptimismCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (methodVariables.size() >= 1 || hasSmell == true) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Resource Optimism", testMethod);
+			}
+			testMethod.addDataItem("ResourceOptimismCount", String.valueOf(resourceOptimismCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				resourceOptimismCount = 0;
-				hasSmell = false;
-				methodVariables = new ArrayList<>();
-			}
+			// reset values for next method
+			currentMethod = null;
+			resourceOptimismCount = 0;
+			hasSmell = false;
+			methodVariables = new ArrayList<>();
 		}
 
 		@Override
-		public void visit(VariableDeclarationExpr n, Void arg) {
+		public boolean visit(VariableDeclarationExpr n) {
 			if (currentMethod != null) {
 				for (VariableDeclarator variableDeclarator : n.getVariables()) {
 					if (variableDeclarator.getType().equals("File")) {
@@ -108,11 +89,11 @@ public class ResourceOptimism extends AbstractSmell {
 					}
 				}
 			}
-			super.visit(n, arg);
+			return true;
 		}
 
 		@Override
-		public void visit(ObjectCreationExpr n, Void arg) {
+		public boolean visit(ObjectCreationExpr n) {
 			if (currentMethod != null) {
 				if (n.getParentNode().isPresent()) {
 					if (!(n.getParentNode().get() instanceof VariableDeclarator)) { // VariableDeclarator is handled in
@@ -125,11 +106,11 @@ public class ResourceOptimism extends AbstractSmell {
 			} else {
 				System.out.println(n.getType());
 			}
-			super.visit(n, arg);
+			return true;
 		}
 
 		@Override
-		public void visit(VariableDeclarator n, Void arg) {
+		public boolean visit(VariableDeclarator n) {
 			if (currentMethod != null) {
 				if (n.getType().asString().equals("File")) {
 					methodVariables.add(n.getNameAsString());
@@ -139,22 +120,21 @@ public class ResourceOptimism extends AbstractSmell {
 					classVariables.add(n.getNameAsString());
 				}
 			}
-			super.visit(n, arg);
+			return true;
 		}
 
 		@Override
-		public void visit(FieldDeclaration n, Void arg) {
+		public boolean visit(FieldDeclaration n) {
 			for (VariableDeclarator variableDeclarator : n.getVariables()) {
 				if (variableDeclarator.getType().equals("File")) {
 					classVariables.add(variableDeclarator.getNameAsString());
 				}
 			}
-			super.visit(n, arg);
+			return true;
 		}
 
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				if (n.getNameAsString().equals("exists") || n.getNameAsString().equals("isFile")
 						|| n.getNameAsString().equals("notExists")) {
@@ -169,6 +149,13 @@ public class ResourceOptimism extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 
 }
@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,22 +7,15 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class SensitiveEquality extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public SensitiveEquality() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Sensitive Equality' smell
 	 */
@@ -32,68 +24,56 @@ public class SensitiveEquality extends AbstractSmell {
 		return "Sensitive Equality";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods the 'Sensitive Equality' smell
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		SensitiveEquality.ClassVisitor classVisitor;
-		classVisitor = new SensitiveEquality.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new SensitiveEquality.ClassVisitor(testFile);
 	}
 
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
-	}
-
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		private int sensitiveCount = 0;
 		TestMethod testMethod;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				currentMethod = n;
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
+				return true;
+			}
+			return false;
+		}
 
-				if (sensitiveCount >= 1) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Sensitive Equality", testMethod);
-				}
-				testMethod.addDataItem("SensitiveCount", String.valueOf(sensitiveCount));
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			if (sensitiveCount >= 1) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Sensitive Equality", testMethod);
+			}
+			testMethod.addDataItem("SensitiveCount", String.valueOf(sensitiveCount));
 
-				smellyElementList.add(testMethod);
+			smellyElementList.add(testMethod);
 
-				// reset values for next method
-				currentMethod = null;
-				sensitiveCount = 0;
-			}
+			// reset values for next method
+			currentMethod = null;
+			sensitiveCount = 0;
 		}
 
 		// examine the methods being called within the test method
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				// if the name of a method being called start with 'assert'
 				if (n.getNameAsString().startsWith(("assert"))) {
@@ -117,5 +97,12 @@ public class SensitiveEquality extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }
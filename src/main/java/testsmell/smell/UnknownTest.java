@@ -1,6 +1,5 @@
 package testsmell.smell;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -11,22 +10,15 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.MemberValuePair;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import testsmell.AbstractSmell;
+import testsmell.SmellVisitor;
 import testsmell.TestFile;
 import testsmell.TestMethod;
 import testsmell.Util;
 
 public class UnknownTest extends AbstractSmell {
 
-	private List<TestMethod> smellyElementList;
-	private TestFile currentTestFile;
-
-	public UnknownTest() {
-		smellyElementList = new ArrayList<>();
-	}
-
 	/**
 	 * Checks of 'Unknown Test' smell
 	 */
@@ -35,37 +27,18 @@ public class UnknownTest extends AbstractSmell {
 		return "Unknown Test";
 	}
 
-	/**
-	 * Returns true if any of the elements has a smell
-	 */
-	@Override
-	public boolean getHasSmell() {
-		return smellyElementList.stream().filter(x -> x.getHasSmell()).count() >= 1;
-	}
-
 	/**
 	 * Analyze the test file for test methods that do not have assert statement or
 	 * exceptions
 	 */
 	@Override
-	public void runAnalysis(TestFile testFile, CompilationUnit testFileCompilationUnit,
-			CompilationUnit productionFileCompilationUnit, String testFileName, String productionFileName)
-			throws FileNotFoundException {
-		this.currentTestFile = testFile;
-		UnknownTest.ClassVisitor classVisitor;
-		classVisitor = new UnknownTest.ClassVisitor();
-		classVisitor.visit(testFileCompilationUnit, null);
+	public SmellVisitor createVisitor(TestFile testFile, CompilationUnit productionFileCompilationUnit) {
+		return new UnknownTest.ClassVisitor(testFile);
 	}
 
-	/**
-	 * Returns the set of analyzed elements (i.e. test methods)
-	 */
-	@Override
-	public List<TestMethod> getSmellyElements() {
-		return smellyElementList;
-	}
-
-	private class ClassVisitor extends VoidVisitorAdapter<Void> {
+	private static class ClassVisitor extends SmellVisitor {
+		private final TestFile currentTestFile;
+		private final List<TestMethod> smellyElementList = new ArrayList<>();
 		private MethodDeclaration currentMethod = null;
 		TestMethod testMethod;
 		@SuppressWarnings("unused")
@@ -73,9 +46,13 @@ public class UnknownTest extends AbstractSmell {
 		boolean hasAssert = false;
 		boolean hasExceptionAnnotation = false;
 
+		private ClassVisitor(TestFile testFile) {
+			this.currentTestFile = testFile;
+		}
+
 		// examine all methods in the test class
 		@Override
-		public void visit(MethodDeclaration n, Void arg) {
+		public boolean visit(MethodDeclaration n) {
 			if (Util.isValidTestMethod(n)) {
 				Optional<AnnotationExpr> assertAnnotation = n.getAnnotationByName("Test");
 				if (assertAnnotation.isPresent()) {
@@ -94,26 +71,29 @@ public class UnknownTest extends AbstractSmell {
 				testMethod = new TestMethod(n.getNameAsString());
 				currentTestFile.addTest(testMethod);
 				testMethod.setHasSmell(false); // default value is false (i.e. no smell)
-				super.visit(n, arg);
-
-				// if there are duplicate messages, then the smell exists
-				if (!hasAssert && !hasExceptionAnnotation) {
-					testMethod.setHasSmell(true);
-					currentTestFile.addSmellMethod("Unknown Test", testMethod);
-				}
-				smellyElementList.add(testMethod);
+				return true;
+			}
+			return false;
+		}
 
-				// reset values for next method
-				currentMethod = null;
-				assertMessage = new ArrayList<>();
-				hasAssert = false;
+		@Override
+		public void endVisit(MethodDeclaration n) {
+			// if there are duplicate messages, then the smell exists
+			if (!hasAssert && !hasExceptionAnnotation) {
+				testMethod.setHasSmell(true);
+				currentTestFile.addSmellMethod("Unknown Test", testMethod);
 			}
+			smellyElementList.add(testMethod);
+
+			// reset values for next method
+			currentMethod = null;
+			assertMessage = new ArrayList<>();
+			hasAssert = false;
 		}
 
 		// examine the methods being called within the test method
 		@Override
-		public void visit(MethodCallExpr n, Void arg) {
-			super.visit(n, arg);
+		public void endVisit(MethodCallExpr n) {
 			if (currentMethod != null) {
 				// if the name of a method being called start with 'assert'
 				if (n.getNameAsString().startsWith(("assert"))) {
@@ -127,5 +107,12 @@ public class UnknownTest extends AbstractSmell {
 			}
 		}
 
+		/**
+		 * Returns the set of analyzed elements (i.e. test methods)
+		 */
+		@Override
+		public List<TestMethod> getSmellyElements() {
+			return smellyElementList;
+		}
 	}
 }